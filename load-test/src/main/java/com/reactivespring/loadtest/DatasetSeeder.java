@@ -0,0 +1,113 @@
+package com.reactivespring.loadtest;
+
+import java.io.*;
+import java.net.URI;
+import java.net.http.*;
+import java.time.LocalDate;
+import java.util.*;
+
+import com.fasterxml.jackson.databind.*;
+
+/**
+ * Writes the synthetic movies and reviews through the bulk NDJSON endpoints, so the services build their own
+ * documents, indexes and review summaries just as they would in production.
+ */
+final class DatasetSeeder {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final HttpClient client;
+    private final ObjectMapper objectMapper;
+    private final LoadTestConfig config;
+    private final Random random;
+
+    DatasetSeeder(HttpClient client, ObjectMapper objectMapper, LoadTestConfig config) {
+        this.client = client;
+        this.objectMapper = objectMapper;
+        this.config = config;
+        this.random = new Random(config.randomSeed);
+    }
+
+    /**
+     * @return the movie info ids by popularity rank, the first has the most reviews
+     */
+    List<String> seed(String moviesInfoUrl, String reviewsUrl, ZipfDistribution popularity)
+            throws IOException, InterruptedException {
+
+        List<String> movieInfoIds = new ArrayList<>(config.movies);
+        List<Map<String, Object>> batch = new ArrayList<>();
+        for (int rank = 0; rank < config.movies; rank++) {
+            batch.add(movieInfo(rank));
+            if (batch.size() == config.seedBatchSize || rank == config.movies - 1) {
+                movieInfoIds.addAll(bulkInsert(moviesInfoUrl + "/v1/movies/info/bulk", batch));
+                batch.clear();
+            }
+        }
+
+        long totalReviews = Math.round(config.movies * config.reviewsPerMovie);
+        for (int rank = 0; rank < config.movies; rank++) {
+            long reviews = Math.round(totalReviews * popularity.share(rank));
+            for (long review = 0; review < reviews; review++) {
+                batch.add(review(movieInfoIds.get(rank)));
+                if (batch.size() == config.seedBatchSize) {
+                    bulkInsert(reviewsUrl + "/v1/reviews/bulk", batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            bulkInsert(reviewsUrl + "/v1/reviews/bulk", batch);
+        }
+        return movieInfoIds;
+    }
+
+    private Map<String, Object> movieInfo(int rank) {
+        int year = 1970 + rank % 50;
+        return Map.of(
+                "name", "Load Test Movie " + rank,
+                "year", year,
+                "cast", List.of("Actor " + random.nextInt(1000), "Actor " + random.nextInt(1000)),
+                "release_date", LocalDate.of(year, 1 + rank % 12, 1 + rank % 28).toString());
+    }
+
+    private Map<String, Object> review(String movieInfoId) {
+        return Map.of(
+                "movieInfoId", movieInfoId,
+                "comment", "Load test review " + random.nextInt(),
+                "rating", Math.round(random.nextDouble() * 100) / 10.0);
+    }
+
+    // the ids of the inserted documents in request order, any item that was not created fails the seeding
+    private List<String> bulkInsert(String url, List<Map<String, Object>> documents)
+            throws IOException, InterruptedException {
+
+        StringBuilder body = new StringBuilder();
+        for (Map<String, Object> document : documents) {
+            body.append(objectMapper.writeValueAsString(document)).append('\n');
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", NDJSON)
+                .header("Accept", NDJSON)
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Seeding " + url + " failed with " + response.statusCode() + " : "
+                    + response.body());
+        }
+
+        List<String> ids = new ArrayList<>(documents.size());
+        for (String line : response.body().split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode result = objectMapper.readTree(line);
+            if (!"CREATED".equals(result.path("status").asText())) {
+                throw new IllegalStateException("Seeding " + url + " rejected an item : " + line);
+            }
+            ids.add(result.path("id").asText());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,44 @@
+package com.reactivespring.loadtest;
+
+import java.io.IOException;
+
+import de.flapdoodle.embed.mongo.*;
+import de.flapdoodle.embed.mongo.config.*;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+
+/**
+ * A throwaway mongod shared by the three services, the same flapdoodle distribution the integration tests use.
+ */
+final class EmbeddedMongo implements AutoCloseable {
+
+    private final MongodExecutable executable;
+    private final int port;
+
+    private EmbeddedMongo(MongodExecutable executable, int port) {
+        this.executable = executable;
+        this.port = port;
+    }
+
+    static EmbeddedMongo start() throws IOException {
+
+        int port = Network.getFreeServerPort();
+        MongodConfig config = MongodConfig.builder()
+                .version(Version.Main.V4_0)
+                .net(new Net(port, Network.localhostIsIPv6()))
+                .build();
+
+        MongodExecutable executable = MongodStarter.getDefaultInstance().prepare(config);
+        executable.start();
+        return new EmbeddedMongo(executable, port);
+    }
+
+    int port() {
+        return port;
+    }
+
+    @Override
+    public void close() {
+        executable.stop();
+    }
+}
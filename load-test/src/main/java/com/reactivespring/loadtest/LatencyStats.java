@@ -0,0 +1,58 @@
+package com.reactivespring.loadtest;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.*;
+
+/**
+ * Latencies and outcomes of one scenario. Latency runs from the time a request was due, not the time it was sent, so
+ * a stall in the service or in the load generator shows up in the percentiles instead of silently lowering the
+ * request rate.
+ */
+final class LatencyStats {
+
+    private final String scenario;
+    private final Recorder recorder = new Recorder(3);
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    LatencyStats(String scenario) {
+        this.scenario = scenario;
+    }
+
+    String scenario() {
+        return scenario;
+    }
+
+    void recordSuccess(long intendedStartNanos) {
+        recorder.recordValue(Math.max(0, System.nanoTime() - intendedStartNanos));
+        succeeded.increment();
+    }
+
+    // errors and 4xx/5xx are counted but kept out of the histogram, a fast failure would flatter it
+    void recordFailure() {
+        failed.increment();
+    }
+
+    // due while max-in-flight requests were outstanding, never sent
+    void recordDrop() {
+        dropped.increment();
+    }
+
+    long succeeded() {
+        return succeeded.sum();
+    }
+
+    long failed() {
+        return failed.sum();
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    Histogram histogram() {
+        return recorder.getIntervalHistogram();
+    }
+}
@@ -0,0 +1,119 @@
+package com.reactivespring.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.flapdoodle.embed.process.runtime.Network;
+
+/**
+ * Boots the three services against an embedded mongo, seeds a synthetic catalogue, drives open loop traffic at a
+ * fixed rate and writes a latency report.
+ *
+ * <pre>
+ * ./gradlew :load-test:run -Dloadtest.rate=500 -Dloadtest.duration=2m -Dloadtest.report=build/loadtest/after.txt
+ * </pre>
+ *
+ * See {@link LoadTestConfig} for every setting.
+ */
+public class LoadTest {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    public static void main(String[] args) throws Exception {
+
+        LoadTestConfig config = new LoadTestConfig();
+        Path logDirectory = config.report.toAbsolutePath().getParent();
+        Files.createDirectories(logDirectory);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build();
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        int moviesInfoPort = Network.getFreeServerPort();
+        int moviesReviewPort = Network.getFreeServerPort();
+        int moviesPort = Network.getFreeServerPort();
+
+        try (EmbeddedMongo mongo = EmbeddedMongo.start();
+                ServiceProcess moviesInfo = ServiceProcess.start("movies-info-service", config.moviesInfoJar,
+                        moviesInfoPort, logDirectory, mongoArguments(mongo));
+                ServiceProcess moviesReview = ServiceProcess.start("movies-review-service", config.moviesReviewJar,
+                        moviesReviewPort, logDirectory, mongoArguments(mongo));
+                ServiceProcess movies = ServiceProcess.start("movies-service", config.moviesJar, moviesPort,
+                        logDirectory, List.of(
+                                "--rest-clients.movies-info.service-url=http://localhost:" + moviesInfoPort
+                                        + "/v1/movies/info",
+                                "--rest-clients.movies-review.service-url=http://localhost:" + moviesReviewPort
+                                        + "/v1/reviews"))) {
+
+            moviesInfo.awaitHealthy(client, STARTUP_TIMEOUT);
+            moviesReview.awaitHealthy(client, STARTUP_TIMEOUT);
+            movies.awaitHealthy(client, STARTUP_TIMEOUT);
+
+            ZipfDistribution popularity = new ZipfDistribution(config.movies, config.skew);
+            System.out.println("Seeding " + config.movies + " movies");
+            List<String> movieInfoIds = new DatasetSeeder(client, objectMapper, config)
+                    .seed(moviesInfo.baseUrl(), moviesReview.baseUrl(), popularity);
+
+            // the popular movies are requested as often as they are reviewed
+            Function<Random, String> movieInfoId = random -> movieInfoIds.get(popularity.sample(random));
+            Map<String, Function<Random, URI>> endpoints = Map.of(
+                    "movie", random -> URI.create(movies.baseUrl() + "/v1/movies/" + movieInfoId.apply(random)),
+                    "movie-page", random -> URI.create(movies.baseUrl() + "/v1/movies/" + movieInfoId.apply(random)
+                            + "?reviewsLimit=10&reviewsSort=newest"),
+                    "reviews", random -> URI.create(moviesReview.baseUrl() + "/v1/reviews?movieInfoId="
+                            + movieInfoId.apply(random)),
+                    "info-list", random -> URI.create(moviesInfo.baseUrl() + "/v1/movies/info/list?pageSize=100"));
+
+            List<OpenLoopDriver.Scenario> scenarios = new ArrayList<>();
+            config.mix.forEach((name, weight) -> {
+                if (!endpoints.containsKey(name)) {
+                    throw new IllegalArgumentException("Unknown scenario " + name + ", one of " + endpoints.keySet());
+                }
+                scenarios.add(new OpenLoopDriver.Scenario(name, weight, endpoints.get(name)));
+            });
+
+            OpenLoopDriver driver = new OpenLoopDriver(client, config, scenarios);
+            try (StreamProbe streamProbe = new StreamProbe(client, objectMapper, config, movies.baseUrl(),
+                    moviesInfo.baseUrl())) {
+
+                streamProbe.subscribe();
+                CompletableFuture<Void> streaming = CompletableFuture.runAsync(() -> {
+                    try {
+                        streamProbe.run();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+
+                System.out.println("Driving " + config.rate + " requests/s for " + config.warmup + " warmup and "
+                        + config.duration);
+                driver.run();
+                streaming.join();
+
+                List<LatencyStats> allStats = new ArrayList<>(driver.stats());
+                allStats.add(streamProbe.stats());
+                Report.write(config, allStats);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<String> mongoArguments(EmbeddedMongo mongo) {
+        return List.of(
+                "--spring.data.mongodb.host=localhost",
+                "--spring.data.mongodb.port=" + mongo.port(),
+                "--spring.data.mongodb.database=movies-loadtest");
+    }
+}
@@ -0,0 +1,97 @@
+package com.reactivespring.loadtest;
+
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Settings of a run, read from {@code loadtest.*} system properties. The gradle run task forwards the ones given to
+ * gradle and adds the paths of the three boot jars.
+ */
+final class LoadTestConfig {
+
+    private static final String PREFIX = "loadtest.";
+
+    // synthetic dataset
+    final int movies = intValue("movies", 1000);
+    final double reviewsPerMovie = doubleValue("reviews-per-movie", 20);
+    // zipf exponent of the review counts and of the movies requested, 0 spreads them evenly
+    final double skew = doubleValue("skew", 1.0);
+    final int seedBatchSize = intValue("seed-batch-size", 500);
+    final long randomSeed = longValue("random-seed", 42);
+
+    // open loop traffic against the request/response endpoints
+    final double rate = doubleValue("rate", 200);
+    final Duration warmup = durationValue("warmup", Duration.ofSeconds(10));
+    final Duration duration = durationValue("duration", Duration.ofSeconds(60));
+    final int maxInFlight = intValue("max-in-flight", 2000);
+    final Map<String, Integer> mix = mixValue("mix", "movie=40,movie-page=10,reviews=25,info-list=25");
+
+    // subscribers held open on /v1/movies/stream and the rate movie infos are published to them
+    final int streamSubscribers = intValue("stream-subscribers", 4);
+    final double streamPublishRate = doubleValue("stream-publish-rate", 5);
+
+    final Path report = Path.of(stringValue("report", "build/loadtest/report.txt"));
+
+    final Path moviesInfoJar = pathValue("movies-info-service.jar");
+    final Path moviesReviewJar = pathValue("movies-review-service.jar");
+    final Path moviesJar = pathValue("movies-service.jar");
+
+    /**
+     * One line of the settings, the report starts with it so two reports are only compared like for like.
+     */
+    String describe() {
+        return String.format(Locale.ROOT,
+                "movies=%d reviews-per-movie=%s skew=%s rate=%s/s warmup=%s duration=%s max-in-flight=%d mix=%s "
+                        + "stream-subscribers=%d stream-publish-rate=%s/s random-seed=%d",
+                movies, reviewsPerMovie, skew, rate, warmup, duration, maxInFlight, mix, streamSubscribers,
+                streamPublishRate, randomSeed);
+    }
+
+    private static String stringValue(String name, String defaultValue) {
+        return System.getProperty(PREFIX + name, defaultValue);
+    }
+
+    private static int intValue(String name, int defaultValue) {
+        return Integer.parseInt(stringValue(name, String.valueOf(defaultValue)));
+    }
+
+    private static long longValue(String name, long defaultValue) {
+        return Long.parseLong(stringValue(name, String.valueOf(defaultValue)));
+    }
+
+    private static double doubleValue(String name, double defaultValue) {
+        return Double.parseDouble(stringValue(name, String.valueOf(defaultValue)));
+    }
+
+    // 90s, 2m or an ISO-8601 duration
+    private static Duration durationValue(String name, Duration defaultValue) {
+        String value = System.getProperty(PREFIX + name);
+        if (value == null) {
+            return defaultValue;
+        }
+        return Duration.parse(value.startsWith("P") ? value : "PT" + value.toUpperCase(Locale.ROOT));
+    }
+
+    private static Path pathValue(String name) {
+        String value = System.getProperty(PREFIX + name);
+        if (value == null) {
+            throw new IllegalArgumentException(PREFIX + name + " is not set, start the load test with "
+                    + "./gradlew :load-test:run");
+        }
+        return Path.of(value);
+    }
+
+    // scenario=weight pairs, scenarios left out are not requested
+    private static Map<String, Integer> mixValue(String name, String defaultValue) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String entry : stringValue(name, defaultValue).split(",")) {
+            String[] scenarioAndWeight = entry.trim().split("=");
+            if (scenarioAndWeight.length != 2) {
+                throw new IllegalArgumentException(PREFIX + name + " must be scenario=weight pairs, got " + entry);
+            }
+            mix.put(scenarioAndWeight[0].trim(), Integer.parseInt(scenarioAndWeight[1].trim()));
+        }
+        return mix;
+    }
+}
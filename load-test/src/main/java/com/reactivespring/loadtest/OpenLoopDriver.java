@@ -0,0 +1,117 @@
+package com.reactivespring.loadtest;
+
+import java.net.URI;
+import java.net.http.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Sends requests on a fixed schedule whatever the responses do, the way independent users arrive. A closed loop
+ * that waits for each response before the next request backs off exactly when the service slows down and hides the
+ * slowdown from its own numbers.
+ */
+final class OpenLoopDriver {
+
+    /**
+     * A kind of request and its share of the traffic.
+     */
+    static final class Scenario {
+
+        private final String name;
+        private final int weight;
+        private final Function<Random, URI> uri;
+
+        Scenario(String name, int weight, Function<Random, URI> uri) {
+            this.name = name;
+            this.weight = weight;
+            this.uri = uri;
+        }
+    }
+
+    private final HttpClient client;
+    private final LoadTestConfig config;
+    private final List<Scenario> scenarios;
+    private final int totalWeight;
+    private final Map<String, LatencyStats> stats = new LinkedHashMap<>();
+
+    OpenLoopDriver(HttpClient client, LoadTestConfig config, List<Scenario> scenarios) {
+        this.client = client;
+        this.config = config;
+        this.scenarios = scenarios;
+        this.totalWeight = scenarios.stream().mapToInt(scenario -> scenario.weight).sum();
+        scenarios.forEach(scenario -> stats.put(scenario.name, new LatencyStats(scenario.name)));
+    }
+
+    Collection<LatencyStats> stats() {
+        return stats.values();
+    }
+
+    /**
+     * Runs the warmup, which is not recorded, then the measured duration, and waits for the requests in flight.
+     */
+    void run() throws InterruptedException {
+
+        Random random = new Random(config.randomSeed);
+        Semaphore inFlight = new Semaphore(config.maxInFlight);
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / config.rate);
+
+        long start = System.nanoTime();
+        long measuredFrom = start + config.warmup.toNanos();
+        long end = measuredFrom + config.duration.toNanos();
+
+        for (long request = 0;; request++) {
+            long intendedStart = start + request * intervalNanos;
+            if (intendedStart >= end) {
+                break;
+            }
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Scenario scenario = pick(random);
+            LatencyStats scenarioStats = intendedStart >= measuredFrom ? stats.get(scenario.name) : null;
+            if (!inFlight.tryAcquire()) {
+                if (scenarioStats != null) {
+                    scenarioStats.recordDrop();
+                }
+                continue;
+            }
+
+            HttpRequest httpRequest = HttpRequest.newBuilder(scenario.uri.apply(random))
+                    .timeout(Duration.ofSeconds(30))
+                    .build();
+            client.sendAsync(httpRequest, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        inFlight.release();
+                        if (scenarioStats == null) {
+                            return;
+                        }
+                        if (error == null && response.statusCode() < 400) {
+                            scenarioStats.recordSuccess(intendedStart);
+                        } else {
+                            scenarioStats.recordFailure();
+                        }
+                    });
+        }
+
+        // the last requests still count, their latency is measured from when they were due
+        if (!inFlight.tryAcquire(config.maxInFlight, 60, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Requests were still in flight a minute after the run ended");
+        }
+    }
+
+    private Scenario pick(Random random) {
+        int ticket = random.nextInt(totalWeight);
+        for (Scenario scenario : scenarios) {
+            ticket -= scenario.weight;
+            if (ticket < 0) {
+                return scenario;
+            }
+        }
+        return scenarios.get(scenarios.size() - 1);
+    }
+}
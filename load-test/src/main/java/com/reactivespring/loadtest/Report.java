@@ -0,0 +1,57 @@
+package com.reactivespring.loadtest;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * A plain text summary meant to be diffed between versions, one line per scenario with the same columns every run,
+ * and the full percentile distribution of each scenario in an .hgrm file next to it for plotting.
+ */
+final class Report {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private Report() {
+    }
+
+    static void write(LoadTestConfig config, Collection<LatencyStats> allStats) throws IOException {
+
+        Path report = config.report.toAbsolutePath();
+        Files.createDirectories(report.getParent());
+        String stem = report.getFileName().toString().replaceFirst("\\.[^.]*$", "");
+        double seconds = config.duration.toMillis() / 1000.0;
+
+        StringBuilder text = new StringBuilder();
+        text.append("# ").append(config.describe()).append('\n');
+        text.append("# latency in ms from when each request was due, so stalls are not hidden by coordinated omission\n");
+        text.append(String.format(Locale.ROOT, "%-12s %10s %8s %8s %10s %9s %9s %9s %9s %9s%n",
+                "scenario", "succeeded", "failed", "dropped", "ops/s", "p50", "p90", "p99", "p99.9", "max"));
+
+        for (LatencyStats stats : allStats) {
+            Histogram histogram = stats.histogram();
+            text.append(String.format(Locale.ROOT, "%-12s %10d %8d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    stats.scenario(), stats.succeeded(), stats.failed(), stats.dropped(), stats.succeeded() / seconds,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue())));
+
+            Path distribution = report.resolveSibling(stem + "-" + stats.scenario() + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(distribution), false,
+                    StandardCharsets.UTF_8)) {
+                histogram.outputPercentileDistribution(out, NANOS_PER_MILLI);
+            }
+        }
+
+        Files.writeString(report, text);
+        System.out.print(text);
+        System.out.println("Report written to " + report);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+}
@@ -0,0 +1,164 @@
+package com.reactivespring.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Holds subscribers open on /v1/movies/stream and publishes movie infos on a fixed schedule, recording how long each
+ * movie takes from when it was due to be published until it reaches each subscriber.
+ */
+final class StreamProbe implements AutoCloseable {
+
+    private static final String NAME_PREFIX = "loadtest-stream-";
+
+    private final HttpClient client;
+    private final ObjectMapper objectMapper;
+    private final LoadTestConfig config;
+    private final String moviesUrl;
+    private final String moviesInfoUrl;
+
+    private final LatencyStats stats = new LatencyStats("stream");
+    private final Map<String, Long> publishedAt = new ConcurrentHashMap<>();
+    private final AtomicLong measuredPublished = new AtomicLong();
+    private final List<Flow.Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private volatile long measuredFrom = Long.MAX_VALUE;
+
+    StreamProbe(HttpClient client, ObjectMapper objectMapper, LoadTestConfig config, String moviesUrl,
+            String moviesInfoUrl) {
+        this.client = client;
+        this.objectMapper = objectMapper;
+        this.config = config;
+        this.moviesUrl = moviesUrl;
+        this.moviesInfoUrl = moviesInfoUrl;
+    }
+
+    LatencyStats stats() {
+        return stats;
+    }
+
+    void subscribe() {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(moviesUrl + "/v1/movies/stream"))
+                .header("Accept", "application/x-ndjson")
+                .build();
+        for (int subscriber = 0; subscriber < config.streamSubscribers; subscriber++) {
+            client.sendAsync(request, HttpResponse.BodyHandlers.fromLineSubscriber(new MovieSubscriber()));
+        }
+    }
+
+    /**
+     * Publishes through the warmup and the measured duration, then gives the last movies a moment to arrive.
+     */
+    void run() throws InterruptedException {
+
+        if (config.streamSubscribers == 0 || config.streamPublishRate <= 0) {
+            return;
+        }
+
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / config.streamPublishRate);
+        long start = System.nanoTime();
+        measuredFrom = start + config.warmup.toNanos();
+        long end = measuredFrom + config.duration.toNanos();
+
+        for (long movie = 0;; movie++) {
+            long intendedStart = start + movie * intervalNanos;
+            if (intendedStart >= end) {
+                break;
+            }
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            String name = NAME_PREFIX + movie;
+            boolean measured = intendedStart >= measuredFrom;
+            publishedAt.put(name, intendedStart);
+            client.sendAsync(publishRequest(name), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        if (!measured) {
+                            return;
+                        }
+                        if (error == null && response.statusCode() < 400) {
+                            measuredPublished.incrementAndGet();
+                        } else {
+                            stats.recordFailure();
+                        }
+                    });
+        }
+
+        Thread.sleep(Duration.ofSeconds(5).toMillis());
+
+        // every subscriber should have seen every measured movie, the ones that never arrived are failures
+        long missing = measuredPublished.get() * config.streamSubscribers - stats.succeeded();
+        for (long delivery = 0; delivery < missing; delivery++) {
+            stats.recordFailure();
+        }
+    }
+
+    private HttpRequest publishRequest(String name) {
+        Map<String, Object> movieInfo = Map.of(
+                "name", name,
+                "year", 2021,
+                "cast", List.of("Load Test Cast"),
+                "release_date", LocalDate.of(2021, 1, 1).toString());
+        try {
+            return HttpRequest.newBuilder(URI.create(moviesInfoUrl + "/v1/movies/info/add"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(movieInfo)))
+                    .build();
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private void received(String line) {
+        if (line.isBlank()) {
+            return;
+        }
+        try {
+            String name = objectMapper.readTree(line).path("movieInfo").path("name").asText();
+            Long intendedStart = publishedAt.get(name);
+            if (intendedStart != null && intendedStart >= measuredFrom) {
+                stats.recordSuccess(intendedStart);
+            }
+        } catch (IOException ex) {
+            stats.recordFailure();
+        }
+    }
+
+    @Override
+    public void close() {
+        subscriptions.forEach(Flow.Subscription::cancel);
+    }
+
+    private final class MovieSubscriber implements Flow.Subscriber<String> {
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscriptions.add(subscription);
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            received(line);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            stats.recordFailure();
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
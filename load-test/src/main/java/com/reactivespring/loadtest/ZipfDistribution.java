@@ -0,0 +1,42 @@
+package com.reactivespring.loadtest;
+
+import java.util.*;
+
+/**
+ * Ranks 0..n-1 where rank k is picked with a weight of 1/(k+1)^exponent. A few movies get most of the reviews and
+ * most of the requests, like a real catalogue, and an exponent of 0 makes every rank equally likely.
+ */
+final class ZipfDistribution {
+
+    private final double[] shares;
+    private final double[] cumulative;
+
+    ZipfDistribution(int n, double exponent) {
+
+        shares = new double[n];
+        cumulative = new double[n];
+
+        double total = 0;
+        for (int rank = 0; rank < n; rank++) {
+            shares[rank] = 1 / Math.pow(rank + 1, exponent);
+            total += shares[rank];
+        }
+        double sum = 0;
+        for (int rank = 0; rank < n; rank++) {
+            shares[rank] /= total;
+            sum += shares[rank];
+            cumulative[rank] = sum;
+        }
+    }
+
+    // the part of all draws that falls on the rank
+    double share(int rank) {
+        return shares[rank];
+    }
+
+    int sample(Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cumulative.length - 1);
+    }
+}
@@ -0,0 +1,155 @@
+package com.reactivespring.common.bulk;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.*;
+
+import javax.validation.*;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.*;
+import reactor.util.function.Tuple2;
+
+/**
+ * Validates a stream of documents and writes them with one insertMany per batch, reporting a result per item.
+ * Each service declares its own, with the {@link BulkProperties} bound under the {@code <service>.bulk} prefix.
+ */
+@RequiredArgsConstructor
+public class BulkInserter {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final Validator validator;
+    private final BulkProperties bulkProperties;
+
+    public <T> Flux<BulkItemResult> insert(Flux<T> items, Class<T> type) {
+        return insert(items, type, inserting -> Mono.empty(), notInserted -> Mono.empty());
+    }
+
+    /**
+     * @param beforeInsert runs with the valid items of each batch before they are written
+     * @param onNotInserted runs with those of them that did not make it into mongo, before their results are emitted
+     */
+    public <T> Flux<BulkItemResult> insert(Flux<T> items, Class<T> type, Function<List<T>, Mono<Void>> beforeInsert,
+            Function<List<T>, Mono<Void>> onNotInserted) {
+
+        boolean ordered = bulkProperties.isOrdered();
+        int concurrency = ordered ? 1 : bulkProperties.getConcurrency();
+
+        return Flux.defer(() -> {
+            AtomicBoolean stopped = new AtomicBoolean();
+
+            return items.index()
+                    .buffer(bulkProperties.getBatchSize())
+                    .flatMapSequential(batch -> Flux.defer(() -> insertBatch(batch, type, beforeInsert,
+                            onNotInserted, ordered, stopped)), concurrency);
+        });
+    }
+
+    private <T> Flux<BulkItemResult> insertBatch(List<Tuple2<Long, T>> batch, Class<T> type,
+            Function<List<T>, Mono<Void>> beforeInsert, Function<List<T>, Mono<Void>> onNotInserted, boolean ordered,
+            AtomicBoolean stopped) {
+
+        if (stopped.get()) {
+            return Flux.fromIterable(batch).map(item -> BulkItemResult.skipped(item.getT1()));
+        }
+
+        List<BulkItemResult> rejected = new ArrayList<>();
+        List<Long> indices = new ArrayList<>();
+        List<T> values = new ArrayList<>();
+        List<Document> documents = new ArrayList<>();
+
+        for (Tuple2<Long, T> item : batch) {
+            if (ordered && !rejected.isEmpty()) {
+                rejected.add(BulkItemResult.skipped(item.getT1()));
+                continue;
+            }
+
+            Set<ConstraintViolation<T>> violations = validator.validate(item.getT2());
+            if (!violations.isEmpty()) {
+                rejected.add(BulkItemResult.invalid(item.getT1(), violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining(", "))));
+                if (ordered) {
+                    stopped.set(true);
+                }
+                continue;
+            }
+
+            Document document = new Document();
+            mongoTemplate.getConverter().write(item.getT2(), document);
+            indices.add(item.getT1());
+            values.add(item.getT2());
+            documents.add(document);
+        }
+
+        String collectionName = mongoTemplate.getCollectionName(type);
+        Mono<List<BulkItemResult>> inserted = documents.isEmpty() ? Mono.just(List.of())
+                : beforeInsert.apply(values)
+                        .then(mongoTemplate.getCollection(collectionName)
+                                .flatMap(collection -> Mono.from(
+                                        collection.insertMany(documents, new InsertManyOptions().ordered(ordered))))
+                                .name("bulk.insert")
+                                .tag("collection", collectionName)
+                                .metrics()
+                                .map(result -> Map.<Integer, String>of())
+                                .onErrorResume(MongoBulkWriteException.class, ex -> Mono.just(writeErrors(ex)))
+                                // none of the batch is known to be written
+                                .onErrorResume(ex -> onNotInserted.apply(values).then(Mono.error(ex))))
+                        .map(writeErrors -> insertResults(indices, documents, writeErrors, ordered, stopped))
+                        .flatMap(results -> onNotInserted.apply(IntStream.range(0, results.size())
+                                .filter(i -> results.get(i).getStatus() != BulkItemResult.Status.CREATED)
+                                .mapToObj(values::get)
+                                .collect(Collectors.toList()))
+                                .thenReturn(results));
+
+        // report in request order, the rejected items are interleaved with the inserted ones
+        return inserted.flatMapIterable(results -> {
+            List<BulkItemResult> all = new ArrayList<>(results);
+            all.addAll(rejected);
+            all.sort(Comparator.comparingLong(BulkItemResult::getIndex));
+            return all;
+        });
+    }
+
+    private static List<BulkItemResult> insertResults(List<Long> indices, List<Document> documents,
+            Map<Integer, String> writeErrors, boolean ordered, AtomicBoolean stopped) {
+
+        int firstError = writeErrors.keySet().stream().min(Integer::compare).orElse(Integer.MAX_VALUE);
+        if (ordered && !writeErrors.isEmpty()) {
+            stopped.set(true);
+        }
+
+        List<BulkItemResult> results = new ArrayList<>(documents.size());
+        for (int i = 0; i < documents.size(); i++) {
+            long index = indices.get(i);
+            if (writeErrors.containsKey(i)) {
+                results.add(BulkItemResult.failed(index, writeErrors.get(i)));
+            } else if (ordered && i > firstError) {
+                results.add(BulkItemResult.skipped(index));
+            } else {
+                // the driver fills in generated ids on the inserted documents
+                results.add(BulkItemResult.created(index, id(documents.get(i).get("_id"))));
+            }
+        }
+        return results;
+    }
+
+    private static Map<Integer, String> writeErrors(MongoBulkWriteException ex) {
+        return ex.getWriteErrors().stream()
+                .collect(Collectors.toMap(BulkWriteError::getIndex, BulkWriteError::getMessage));
+    }
+
+    private static String id(Object id) {
+        return id instanceof ObjectId ? ((ObjectId) id).toHexString() : String.valueOf(id);
+    }
+}
@@ -0,0 +1,45 @@
+package com.reactivespring.common.bulk;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResult {
+
+    public enum Status {
+        CREATED,
+        // rejected by validation, never sent to mongo
+        INVALID,
+        // rejected by mongo, e.g. a duplicate id
+        FAILED,
+        // not attempted, an earlier item of an ordered bulk failed
+        SKIPPED
+    }
+
+    // position of the item in the request body
+    private long index;
+    private Status status;
+    private String id;
+    private String error;
+
+    public static BulkItemResult created(long index, String id) {
+        return BulkItemResult.builder().index(index).status(Status.CREATED).id(id).build();
+    }
+
+    public static BulkItemResult invalid(long index, String error) {
+        return BulkItemResult.builder().index(index).status(Status.INVALID).error(error).build();
+    }
+
+    public static BulkItemResult failed(long index, String error) {
+        return BulkItemResult.builder().index(index).status(Status.FAILED).error(error).build();
+    }
+
+    public static BulkItemResult skipped(long index) {
+        return BulkItemResult.builder().index(index).status(Status.SKIPPED).build();
+    }
+}
@@ -0,0 +1,23 @@
+package com.reactivespring.common.bulk;
+
+import javax.validation.constraints.Positive;
+
+import org.springframework.validation.annotation.Validated;
+
+import lombok.Data;
+
+@Validated
+@Data
+public class BulkProperties {
+
+    // documents per insertMany
+    @Positive
+    private int batchSize = 1000;
+
+    // ordered bulks stop at the first invalid or failed item and skip the rest
+    private boolean ordered = false;
+
+    // batches in flight at once for unordered bulks, ordered bulks write one batch at a time
+    @Positive
+    private int concurrency = 4;
+}
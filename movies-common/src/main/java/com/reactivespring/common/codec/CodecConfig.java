@@ -0,0 +1,70 @@
+package com.reactivespring.common.codec;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.*;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+/**
+ * Jackson tuning on top of the boot defaults, the codecs of the server and of every WebClient share the one
+ * ObjectMapper. The codec buffer limits are the spring.codec and server.netty settings.
+ * <p>
+ * Smile, the binary form of the same documents, is negotiated next to json for the hops between the services: a
+ * caller asking for application/x-jackson-smile, or application/stream+x-jackson-smile in place of ndjson, gets it
+ * and everyone else keeps json.
+ * <p>
+ * Imported by each service, which binds the {@link CodecProperties} under its own prefix and lists its documents.
+ */
+@Configuration
+public class CodecConfig {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+
+    // one smile document after the other, the streaming counterpart of ndjson
+    public static final String APPLICATION_STREAM_SMILE_VALUE = "application/stream+x-jackson-smile";
+    public static final MediaType APPLICATION_STREAM_SMILE = MediaType.parseMediaType(APPLICATION_STREAM_SMILE_VALUE);
+
+    // the property is read at runtime, a condition on it would need the prefix of every service
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer blackbirdCustomizer(CodecProperties properties) {
+        return builder -> {
+            if (properties.isBlackbird()) {
+                builder.postConfigurer(objectMapper -> objectMapper.registerModule(new BlackbirdModule()));
+            }
+        };
+    }
+
+    @Bean
+    public SmartInitializingSingleton codecWarmUp(ObjectMapper objectMapper, CodecProperties properties) {
+        return () -> {
+            if (properties.isWarmUp()) {
+                properties.getWarmUpTypes().forEach(type -> {
+                    objectMapper.canSerialize(type);
+                    objectMapper.canDeserialize(objectMapper.constructType(type));
+                });
+            }
+        };
+    }
+
+    // webflux registers smile codecs of its own when the format is on the classpath, these share the modules and
+    // settings of the json mapper
+    @Bean
+    public CodecCustomizer smileCodecCustomizer(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper smileMapper = builder.factory(new SmileFactory()).build();
+        // the mime types are not optional, without them the smile codecs claim the json ones
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileDecoder(
+                    new Jackson2SmileDecoder(smileMapper, APPLICATION_SMILE, APPLICATION_STREAM_SMILE));
+            configurer.defaultCodecs().jackson2SmileEncoder(
+                    new Jackson2SmileEncoder(smileMapper, APPLICATION_SMILE, APPLICATION_STREAM_SMILE));
+        };
+    }
+}
@@ -0,0 +1,18 @@
+package com.reactivespring.common.codec;
+
+import java.util.*;
+
+import lombok.Data;
+
+@Data
+public class CodecProperties {
+
+    // generated accessors instead of reflection for every property jackson reads or writes
+    private boolean blackbird = true;
+
+    // build the serializers and deserializers of the documents at startup instead of on the first request
+    private boolean warmUp = true;
+
+    // the documents the service reads and writes, set by the service
+    private List<Class<?>> warmUpTypes = new ArrayList<>();
+}
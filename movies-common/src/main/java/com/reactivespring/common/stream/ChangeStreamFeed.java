@@ -0,0 +1,128 @@
+package com.reactivespring.common.stream;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.mongodb.MongoServerException;
+import com.mongodb.client.model.changestream.OperationType;
+
+import org.bson.*;
+import org.springframework.data.mongodb.core.*;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+/**
+ * Live feed of one collection driven by a MongoDB change stream, so every replica sees inserts, updates and deletes
+ * regardless of which pod handled the write. Requires a replica set (or sharded cluster). Each service maps the
+ * change events of its document type onto the events it publishes.
+ */
+@Slf4j
+public abstract class ChangeStreamFeed<T, E> {
+
+    static final Duration MIN_BACKOFF = Duration.ofSeconds(1);
+    static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    // InvalidResumeToken, ChangeStreamFatalError, ChangeStreamHistoryLost and CappedPositionLost, the resume token is
+    // no good anymore and resuming from it fails every time
+    private static final Set<Integer> NOT_RESUMABLE_CODES = Set.of(260, 280, 286, 136);
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final Class<T> documentType;
+    private final String name;
+
+    // one change stream cursor per JVM, shared by every subscriber
+    private final Flux<E> sharedEvents;
+
+    protected ChangeStreamFeed(ReactiveMongoTemplate reactiveMongoTemplate, Class<T> documentType, String name) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.documentType = documentType;
+        this.name = name;
+        this.sharedEvents = Flux.defer(() -> {
+            // resume where the cursor failed rather than where the first subscriber joined
+            AtomicReference<BsonValue> lastResumeToken = new AtomicReference<>();
+
+            return Flux.defer(() -> listen(lastResumeToken.get()))
+                    .doOnNext(event -> {
+                        if (event.getOperationType() != OperationType.INVALIDATE) {
+                            lastResumeToken.set(event.getResumeToken());
+                            return;
+                        }
+                        // the collection was dropped or renamed, the cursor closes and cannot resume after this
+                        log.warn("{} change stream invalidated, restarting from now", name);
+                        lastResumeToken.set(null);
+                    })
+                    .doOnError(ex -> {
+                        if (isResumable(ex)) {
+                            log.warn("{} change stream failed, resuming: {}", name, ex.getMessage());
+                            return;
+                        }
+                        log.warn("{} change stream cannot resume, restarting from now, changes since the last event "
+                                + "are lost: {}", name, ex.getMessage());
+                        lastResumeToken.set(null);
+                    })
+                    .retryWhen(Retry.backoff(Long.MAX_VALUE, MIN_BACKOFF).maxBackoff(MAX_BACKOFF)
+                            .transientErrors(true))
+                    // a closed cursor completes, the feed itself never does
+                    .repeatWhen(completions -> completions.delayElements(MIN_BACKOFF));
+        })
+                .<E>handle((event, sink) -> toFeedEvent(event).ifPresent(sink::next))
+                .share();
+    }
+
+    /**
+     * The shared feed, or a cursor of its own resuming after the given token. A token the server cannot resume from
+     * fails that cursor.
+     */
+    public Flux<E> events(Optional<String> resumeToken) {
+        return resumeToken
+                .map(token -> Flux.defer(() -> listen(BsonDocument.parse(token)))
+                        .<E>handle((event, sink) -> toFeedEvent(event).ifPresent(sink::next)))
+                .orElse(sharedEvents);
+    }
+
+    /**
+     * Maps an insert, update, replace or delete onto the published event, empty to skip it.
+     */
+    protected abstract Optional<E> toEvent(ChangeStreamEvent<T> event);
+
+    protected static String documentId(ChangeStreamEvent<?> event) {
+        BsonValue id = event.getRaw().getDocumentKey().get("_id");
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+    }
+
+    protected static String resumeToken(ChangeStreamEvent<?> event) {
+        return event.getResumeToken().asDocument().toJson();
+    }
+
+    private Optional<E> toFeedEvent(ChangeStreamEvent<T> event) {
+        if (event.getOperationType() == null || event.getOperationType() == OperationType.INVALIDATE) {
+            return Optional.empty();
+        }
+        return toEvent(event);
+    }
+
+    private Flux<ChangeStreamEvent<T>> listen(BsonValue resumeToken) {
+
+        ChangeStreamOptions.ChangeStreamOptionsBuilder options = ChangeStreamOptions.builder()
+                .returnFullDocumentOnUpdate();
+        if (resumeToken != null) {
+            options.resumeAfter(resumeToken);
+        }
+
+        return reactiveMongoTemplate.changeStream(reactiveMongoTemplate.getCollectionName(documentType),
+                options.build(), documentType);
+    }
+
+    private static boolean isResumable(Throwable ex) {
+        // the template translates driver exceptions, the server error code is on the cause
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoServerException) {
+                return !NOT_RESUMABLE_CODES.contains(((MongoServerException) cause).getCode());
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,90 @@
+package com.reactivespring.common.stream;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.*;
+import java.util.function.Function;
+
+import javax.validation.constraints.*;
+
+import org.springframework.validation.annotation.Validated;
+
+import io.micrometer.core.instrument.*;
+import lombok.*;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Exceptions;
+import reactor.core.publisher.*;
+
+/**
+ * Per subscriber buffering of the hot streams, so one slow subscriber cannot hold back the others. Each service binds
+ * it under its own {@code <service>.stream.backpressure} prefix.
+ */
+@Validated
+@Data
+@Slf4j
+public class StreamBackpressure {
+
+    public enum Strategy {
+        // bounded buffer per subscriber, the oldest pending element is dropped on overflow
+        DROP_OLDEST,
+        // only the most recent pending element is kept
+        LATEST,
+        // a subscriber lagging more than buffer-size elements is failed and disconnected
+        DISCONNECT
+    }
+
+    @NotNull
+    private Strategy strategy = Strategy.DROP_OLDEST;
+
+    @Positive
+    private int bufferSize = 256;
+
+    // a gauge keeps observing the value it was first registered with, so there is one counter per stream
+    @Getter(AccessLevel.NONE)
+    private final Map<String, AtomicInteger> subscribers = new ConcurrentHashMap<>();
+
+    public <T> Function<Flux<T>, Flux<T>> perSubscriber(String stream) {
+
+        Counter dropped = Metrics.counter("stream.backpressure.dropped", "stream", stream);
+        Counter evicted = Metrics.counter("stream.backpressure.evicted", "stream", stream);
+        AtomicInteger streamSubscribers = subscribers.computeIfAbsent(stream,
+                name -> Metrics.gauge("stream.subscribers", Tags.of("stream", name), new AtomicInteger()));
+
+        return flux -> buffer(flux, stream, dropped, evicted)
+                .doOnSubscribe(subscription -> streamSubscribers.incrementAndGet())
+                .doFinally(signal -> streamSubscribers.decrementAndGet());
+    }
+
+    private <T> Flux<T> buffer(Flux<T> flux, String stream, Counter dropped, Counter evicted) {
+
+        switch (strategy) {
+            case LATEST:
+                return flux.onBackpressureBuffer(1, element -> dropped.increment(),
+                        BufferOverflowStrategy.DROP_OLDEST);
+            case DISCONNECT:
+                // cut off right away, an overflow error of the buffer would wait behind the elements a stalled
+                // subscriber never drains, then failed so the client tells the eviction from the end of the stream
+                return Flux.defer(() -> {
+                    Sinks.One<String> overflow = Sinks.one();
+                    AtomicBoolean overflowed = new AtomicBoolean();
+                    return flux.onBackpressureBuffer(bufferSize, element -> {
+                        dropped.increment();
+                        overflow.tryEmitValue(stream);
+                    }, BufferOverflowStrategy.DROP_LATEST)
+                            .takeUntilOther(overflow.asMono().doOnNext(name -> {
+                                log.warn("Evicting slow subscriber from {} stream, lag exceeded {}", name, bufferSize);
+                                evicted.increment();
+                                overflowed.set(true);
+                            }))
+                            .concatWith(Mono.defer(() -> overflowed.get()
+                                    ? Mono.error(Exceptions.failWithOverflow(
+                                            "Evicted from the " + stream + " stream, lag exceeded " + bufferSize))
+                                    : Mono.empty()));
+                });
+            case DROP_OLDEST:
+            default:
+                return flux.onBackpressureBuffer(bufferSize, element -> dropped.increment(),
+                        BufferOverflowStrategy.DROP_OLDEST);
+        }
+    }
+}
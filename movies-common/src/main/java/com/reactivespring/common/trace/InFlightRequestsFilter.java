@@ -0,0 +1,25 @@
+package com.reactivespring.common.trace;
+
+import org.springframework.web.server.*;
+
+import io.micrometer.core.instrument.*;
+import reactor.core.publisher.Mono;
+
+/**
+ * Requests currently being served, with how long the oldest of them has been running. The route is only known once
+ * a handler matched, so the count covers the whole service, http.server.requests breaks the finished ones down.
+ */
+public class InFlightRequestsFilter implements WebFilter {
+
+    private final LongTaskTimer inFlight = LongTaskTimer.builder("http.server.requests.active")
+            .description("Requests in flight")
+            .register(Metrics.globalRegistry);
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return Mono.defer(() -> {
+            LongTaskTimer.Sample sample = inFlight.start();
+            return chain.filter(exchange).doFinally(signal -> sample.stop());
+        });
+    }
+}
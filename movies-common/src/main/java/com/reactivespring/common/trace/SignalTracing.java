@@ -0,0 +1,123 @@
+package com.reactivespring.common.trace;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import javax.validation.constraints.*;
+
+import org.springframework.validation.annotation.Validated;
+
+import lombok.*;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.*;
+
+/**
+ * Sampled per subscription spans in place of {@code .log()}. A span records when the subscription started, when the
+ * first element arrived, how many elements went through and how it ended, and is logged once as a single line when
+ * the subscription terminates. Disabled tracing hands back the publisher untouched. Each service binds it under its
+ * own {@code <service>.tracing} prefix.
+ */
+@Validated
+@Data
+@Slf4j
+public class SignalTracing {
+
+    private boolean enabled = false;
+
+    // share of subscriptions traced, 1.0 traces every request
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    private double sampleRate = 0.01;
+
+    public <T> Function<Flux<T>, Flux<T>> flux(String name) {
+
+        if (!enabled) {
+            return Function.identity();
+        }
+        return flux -> Flux.defer(() -> {
+            if (!sampled()) {
+                return flux;
+            }
+            Span span = new Span(name);
+            return flux
+                    .doOnSubscribe(subscription -> span.start())
+                    .doOnNext(element -> span.next())
+                    .doOnError(span::error)
+                    .doFinally(signal -> report(span.finish(signal)));
+        });
+    }
+
+    public <T> Function<Mono<T>, Mono<T>> mono(String name) {
+
+        if (!enabled) {
+            return Function.identity();
+        }
+        return mono -> Mono.defer(() -> {
+            if (!sampled()) {
+                return mono;
+            }
+            Span span = new Span(name);
+            return mono
+                    .doOnSubscribe(subscription -> span.start())
+                    .doOnNext(element -> span.next())
+                    .doOnError(span::error)
+                    .doFinally(signal -> report(span.finish(signal)));
+        });
+    }
+
+    private boolean sampled() {
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    void report(Span span) {
+        log.info("span={} signal={} elements={} firstElementMs={} durationMs={} error={}",
+                span.getName(), span.getSignal(), span.getElements(), span.getFirstElementMillis(),
+                span.getDurationMillis(), span.getError());
+    }
+
+    /**
+     * Timings of one traced subscription. Signals of a subscription are serialized, so plain fields are enough.
+     */
+    @Getter
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class Span {
+
+        private final String name;
+        private long startNanos;
+        private long firstElementNanos = -1;
+        private long endNanos;
+        private long elements;
+        private SignalType signal;
+        private String error;
+
+        private void start() {
+            startNanos = System.nanoTime();
+        }
+
+        private void next() {
+            if (elements++ == 0) {
+                firstElementNanos = System.nanoTime();
+            }
+        }
+
+        private void error(Throwable throwable) {
+            error = throwable.getClass().getSimpleName();
+        }
+
+        private Span finish(SignalType signal) {
+            this.signal = signal;
+            endNanos = System.nanoTime();
+            return this;
+        }
+
+        // -1 when the subscription ended before any element
+        public long getFirstElementMillis() {
+            return firstElementNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(firstElementNanos - startNanos);
+        }
+
+        public long getDurationMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.reactivespring.common.stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.*;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.model.changestream.OperationType;
+
+import org.bson.*;
+import org.junit.jupiter.api.*;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.*;
+
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+// the template stands in for a replica set, each changeStream call is one cursor
+public class ChangeStreamFeedTest {
+
+    private static final String COLLECTION = "documents";
+
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    static class DocumentFeed extends ChangeStreamFeed<String, String> {
+
+        DocumentFeed(ReactiveMongoTemplate reactiveMongoTemplate) {
+            super(reactiveMongoTemplate, String.class, "Document");
+        }
+
+        @Override
+        protected Optional<String> toEvent(ChangeStreamEvent<String> event) {
+            return Optional.ofNullable(event.getBody());
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        reactiveMongoTemplate = mock(ReactiveMongoTemplate.class);
+        when(reactiveMongoTemplate.getCollectionName(String.class)).thenReturn(COLLECTION);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ChangeStreamEvent<String> event(OperationType operationType, String body, BsonValue resumeToken) {
+        ChangeStreamEvent<String> event = mock(ChangeStreamEvent.class);
+        when(event.getOperationType()).thenReturn(operationType);
+        when(event.getBody()).thenReturn(body);
+        when(event.getResumeToken()).thenReturn(resumeToken);
+        return event;
+    }
+
+    private static BsonValue token(String data) {
+        return new BsonDocument("_data", new BsonString(data));
+    }
+
+    private static MongoCommandException serverError(int code) {
+        return new MongoCommandException(new BsonDocument("ok", new BsonInt32(0))
+                .append("code", new BsonInt32(code))
+                .append("errmsg", new BsonString("error " + code)), new ServerAddress());
+    }
+
+    @SafeVarargs
+    private void cursors(Flux<ChangeStreamEvent<String>> first, Flux<ChangeStreamEvent<String>>... rest) {
+        when(reactiveMongoTemplate.changeStream(eq(COLLECTION), any(ChangeStreamOptions.class), eq(String.class)))
+                .thenReturn(first, rest);
+    }
+
+    private List<Optional<BsonValue>> resumeTokens(int cursors) {
+        ArgumentCaptor<ChangeStreamOptions> options = ArgumentCaptor.forClass(ChangeStreamOptions.class);
+        verify(reactiveMongoTemplate, times(cursors)).changeStream(eq(COLLECTION), options.capture(),
+                eq(String.class));
+        List<Optional<BsonValue>> tokens = new ArrayList<>();
+        options.getAllValues().forEach(option -> tokens.add(option.getResumeToken()));
+        return tokens;
+    }
+
+    @Test
+    void resumesAfterTheLastEventOnATransientError() {
+        cursors(Flux.just(event(OperationType.INSERT, "a", token("1"))).concatWith(Flux.error(serverError(6))),
+                Flux.<ChangeStreamEvent<String>>just(event(OperationType.INSERT, "b", token("2")))
+                        .concatWith(Flux.never()));
+
+        StepVerifier.withVirtualTime(() -> new DocumentFeed(reactiveMongoTemplate).events(Optional.empty()))
+                .expectNext("a")
+                .thenAwait(ChangeStreamFeed.MAX_BACKOFF)
+                .expectNext("b")
+                .thenCancel()
+                .verify();
+
+        assertEquals(List.of(Optional.empty(), Optional.of(token("1"))), resumeTokens(2));
+    }
+
+    @Test
+    void restartsWithoutTheTokenWhenTheHistoryIsLost() {
+        // ChangeStreamHistoryLost, the token aged out of the oplog
+        cursors(Flux.just(event(OperationType.INSERT, "a", token("1"))).concatWith(Flux.error(serverError(286))),
+                Flux.<ChangeStreamEvent<String>>just(event(OperationType.INSERT, "b", token("2")))
+                        .concatWith(Flux.never()));
+
+        StepVerifier.withVirtualTime(() -> new DocumentFeed(reactiveMongoTemplate).events(Optional.empty()))
+                .expectNext("a")
+                .thenAwait(ChangeStreamFeed.MAX_BACKOFF)
+                .expectNext("b")
+                .thenCancel()
+                .verify();
+
+        assertEquals(List.of(Optional.empty(), Optional.empty()), resumeTokens(2));
+    }
+
+    @Test
+    void restartsWithoutTheTokenAfterAnInvalidate() {
+        // the cursor completes after the invalidate event
+        cursors(Flux.just(event(OperationType.INSERT, "a", token("1")),
+                event(OperationType.INVALIDATE, null, token("2"))),
+                Flux.<ChangeStreamEvent<String>>just(event(OperationType.INSERT, "b", token("3")))
+                        .concatWith(Flux.never()));
+
+        StepVerifier.withVirtualTime(() -> new DocumentFeed(reactiveMongoTemplate).events(Optional.empty()))
+                .expectNext("a")
+                .thenAwait(ChangeStreamFeed.MAX_BACKOFF)
+                .expectNext("b")
+                .thenCancel()
+                .verify();
+
+        assertEquals(List.of(Optional.empty(), Optional.empty()), resumeTokens(2));
+    }
+
+    @Test
+    void resumesAClientTokenOnACursorOfItsOwn() {
+        cursors(Flux.<ChangeStreamEvent<String>>just(event(OperationType.UPDATE, "b", token("2")))
+                .concatWith(Flux.never()));
+
+        StepVerifier.create(new DocumentFeed(reactiveMongoTemplate).events(Optional.of(token("1").asDocument()
+                .toJson())))
+                .expectNext("b")
+                .thenCancel()
+                .verify();
+
+        assertEquals(List.of(Optional.of(token("1"))), resumeTokens(1));
+    }
+}
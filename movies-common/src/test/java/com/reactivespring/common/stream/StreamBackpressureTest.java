@@ -0,0 +1,105 @@
+package com.reactivespring.common.stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.*;
+import reactor.core.publisher.*;
+import reactor.test.StepVerifier;
+
+public class StreamBackpressureTest {
+
+    private StreamBackpressure streamBackpressure(StreamBackpressure.Strategy strategy) {
+        StreamBackpressure streamBackpressure = new StreamBackpressure();
+        streamBackpressure.setStrategy(strategy);
+        streamBackpressure.setBufferSize(3);
+        return streamBackpressure;
+    }
+
+    // a hot source like the service sinks, the subscriber asks for nothing while the elements arrive
+    private void emit(Sinks.Many<Integer> sink) {
+        IntStream.rangeClosed(1, 10).forEach(sink::tryEmitNext);
+    }
+
+    @Test
+    void dropOldest() {
+        Sinks.Many<Integer> sink = Sinks.many().multicast().directBestEffort();
+        Flux<Integer> flux = sink.asFlux()
+                .transform(streamBackpressure(StreamBackpressure.Strategy.DROP_OLDEST).perSubscriber("test"));
+
+        StepVerifier.create(flux, 0)
+                .then(() -> emit(sink))
+                .thenRequest(3)
+                .expectNext(8, 9, 10)
+                .then(sink::tryEmitComplete)
+                .verifyComplete();
+    }
+
+    @Test
+    void latest() {
+        Sinks.Many<Integer> sink = Sinks.many().multicast().directBestEffort();
+        Flux<Integer> flux = sink.asFlux()
+                .transform(streamBackpressure(StreamBackpressure.Strategy.LATEST).perSubscriber("test"));
+
+        StepVerifier.create(flux, 0)
+                .then(() -> emit(sink))
+                .thenRequest(1)
+                .expectNext(10)
+                .then(sink::tryEmitComplete)
+                .verifyComplete();
+    }
+
+    @Test
+    void disconnectFailsLaggingSubscriber() {
+        Sinks.Many<Integer> sink = Sinks.many().multicast().directBestEffort();
+        Flux<Integer> flux = sink.asFlux()
+                .transform(streamBackpressure(StreamBackpressure.Strategy.DISCONNECT).perSubscriber("test"));
+
+        // failed as soon as the lag exceeds the buffer, without asking for anything
+        StepVerifier.create(flux, 0)
+                .then(() -> emit(sink))
+                .verifyErrorMatches(Exceptions::isOverflow);
+
+        assertEquals(0, sink.currentSubscriberCount());
+    }
+
+    @Test
+    void disconnectKeepsSubscriberWithinBuffer() {
+        Sinks.Many<Integer> sink = Sinks.many().multicast().directBestEffort();
+        Flux<Integer> flux = sink.asFlux()
+                .transform(streamBackpressure(StreamBackpressure.Strategy.DISCONNECT).perSubscriber("test"));
+
+        StepVerifier.create(flux, 0)
+                .then(() -> IntStream.rangeClosed(1, 3).forEach(sink::tryEmitNext))
+                .thenRequest(3)
+                .expectNext(1, 2, 3)
+                .then(sink::tryEmitComplete)
+                .verifyComplete();
+    }
+
+    @Test
+    void countsSubscribers() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        try {
+            Sinks.Many<Integer> sink = Sinks.many().multicast().directBestEffort();
+            Flux<Integer> flux = sink.asFlux()
+                    .transform(streamBackpressure(StreamBackpressure.Strategy.DROP_OLDEST).perSubscriber("counted"));
+
+            Disposable first = flux.subscribe();
+            Disposable second = flux.subscribe();
+            assertEquals(2, registry.get("stream.subscribers").tag("stream", "counted").gauge().value());
+
+            first.dispose();
+            assertEquals(1, registry.get("stream.subscribers").tag("stream", "counted").gauge().value());
+            second.dispose();
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+}
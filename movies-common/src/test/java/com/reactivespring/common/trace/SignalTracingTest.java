@@ -0,0 +1,86 @@
+package com.reactivespring.common.trace;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.*;
+import reactor.test.StepVerifier;
+
+public class SignalTracingTest {
+
+    private final List<SignalTracing.Span> spans = new ArrayList<>();
+
+    private SignalTracing signalTracing(boolean enabled, double sampleRate) {
+        SignalTracing signalTracing = new SignalTracing() {
+            @Override
+            void report(Span span) {
+                spans.add(span);
+            }
+        };
+        signalTracing.setEnabled(enabled);
+        signalTracing.setSampleRate(sampleRate);
+        return signalTracing;
+    }
+
+    @Test
+    void disabledLeavesThePublisherUntouched() {
+        Flux<Integer> flux = Flux.range(1, 3);
+
+        assertSame(flux, flux.transform(signalTracing(false, 1.0).flux("test")));
+    }
+
+    @Test
+    void spanCountsElementsOfACompletedFlux() {
+        Flux<Integer> flux = Flux.range(1, 3).transform(signalTracing(true, 1.0).flux("test"));
+
+        StepVerifier.create(flux)
+                .expectNext(1, 2, 3)
+                .verifyComplete();
+
+        assertEquals(1, spans.size());
+        SignalTracing.Span span = spans.get(0);
+        assertEquals("test", span.getName());
+        assertEquals(SignalType.ON_COMPLETE, span.getSignal());
+        assertEquals(3, span.getElements());
+        assertTrue(span.getFirstElementMillis() >= 0);
+        assertNull(span.getError());
+    }
+
+    @Test
+    void spanRecordsTheError() {
+        Mono<String> mono = Mono.<String>error(new IllegalStateException("down"))
+                .transform(signalTracing(true, 1.0).mono("test"));
+
+        StepVerifier.create(mono)
+                .verifyError(IllegalStateException.class);
+
+        assertEquals(SignalType.ON_ERROR, spans.get(0).getSignal());
+        assertEquals(-1, spans.get(0).getFirstElementMillis());
+        assertEquals("IllegalStateException", spans.get(0).getError());
+    }
+
+    @Test
+    void spanRecordsCancellation() {
+        Flux<Long> flux = Flux.<Long>never().transform(signalTracing(true, 1.0).flux("test"));
+
+        StepVerifier.create(flux)
+                .thenCancel()
+                .verify();
+
+        assertEquals(SignalType.CANCEL, spans.get(0).getSignal());
+    }
+
+    @Test
+    void unsampledSubscriptionsAreNotTraced() {
+        Flux<Integer> flux = Flux.range(1, 3).transform(signalTracing(true, 0.0).flux("test"));
+
+        StepVerifier.create(flux)
+                .expectNextCount(3)
+                .verifyComplete();
+
+        assertTrue(spans.isEmpty());
+    }
+}
@@ -0,0 +1,59 @@
+package com.reactivespring.common.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+
+import reactor.core.publisher.*;
+
+/**
+ * Asserts through explain that a query is answered from one of the indexes declared on its document.
+ */
+public final class MongoIndexAssertions {
+
+    private MongoIndexAssertions() {
+    }
+
+    public static void assertIndexScan(ReactiveMongoTemplate mongoTemplate, Class<?> entityType, Document filter) {
+        assertIndexScan(mongoTemplate, entityType, filter, new Document());
+    }
+
+    public static void assertIndexScan(ReactiveMongoTemplate mongoTemplate, Class<?> entityType, Document filter,
+            Document sort) {
+
+        // index creation at startup is asynchronous, ensure the declared indexes before explaining
+        var indexResolver = new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        var indexOperations = mongoTemplate.indexOps(entityType);
+        Flux.fromIterable(indexResolver.resolveIndexFor(entityType))
+                .concatMap(indexOperations::ensureIndex)
+                .blockLast();
+
+        Document explain = mongoTemplate.getCollection(mongoTemplate.getCollectionName(entityType))
+                .flatMap(collection -> Mono.from(collection.find(filter).sort(sort).explain()))
+                .block();
+
+        Set<String> stages = new HashSet<>();
+        collectStages(explain.get("queryPlanner", Document.class).get("winningPlan"), stages);
+
+        assertAll("winningPlan " + stages,
+                () -> assertTrue(stages.contains("IXSCAN")),
+                () -> assertFalse(stages.contains("COLLSCAN")));
+    }
+
+    private static void collectStages(Object plan, Set<String> stages) {
+
+        if (plan instanceof Document) {
+            Document stage = (Document) plan;
+            if (stage.containsKey("stage")) {
+                stages.add(stage.getString("stage"));
+            }
+            stage.values().forEach(value -> collectStages(value, stages));
+        } else if (plan instanceof List) {
+            ((List<?>) plan).forEach(value -> collectStages(value, stages));
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.reactive.spring.moviesinfoservice.config;
+
+import javax.validation.Validator;
+
+import com.reactivespring.common.bulk.*;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.*;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+@Configuration
+public class BulkConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "movies-info.bulk")
+    public BulkProperties bulkProperties() {
+        BulkProperties properties = new BulkProperties();
+        // movie infos are larger documents than reviews
+        properties.setBatchSize(500);
+        return properties;
+    }
+
+    @Bean
+    public BulkInserter bulkInserter(ReactiveMongoTemplate mongoTemplate, Validator validator) {
+        return new BulkInserter(mongoTemplate, validator, bulkProperties());
+    }
+}
@@ -0,0 +1,27 @@
+package com.reactive.spring.moviesinfoservice.config;
+
+import javax.validation.constraints.Positive;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import lombok.Data;
+
+@Component
+@ConfigurationProperties(prefix = "movies-info.list")
+@Validated
+@Data
+public class MovieInfoListProperties {
+
+    @Positive
+    private int defaultPageSize = 100;
+
+    // larger requested pages are clamped to this
+    @Positive
+    private int maxPageSize = 500;
+
+    // hard cap on any list response, paged or not
+    @Positive
+    private int maxResults = 1000;
+}
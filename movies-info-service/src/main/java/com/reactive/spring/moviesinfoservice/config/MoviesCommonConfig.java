@@ -0,0 +1,45 @@
+package com.reactive.spring.moviesinfoservice.config;
+
+import java.util.List;
+
+import com.reactive.spring.moviesinfoservice.domain.*;
+import com.reactivespring.common.bulk.BulkItemResult;
+import com.reactivespring.common.codec.*;
+import com.reactivespring.common.stream.StreamBackpressure;
+import com.reactivespring.common.trace.*;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.*;
+
+/**
+ * The pieces shared with the other services through movies-common, bound under the movies-info prefixes.
+ */
+@Configuration
+@Import(CodecConfig.class)
+public class MoviesCommonConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "movies-info.stream.backpressure")
+    public StreamBackpressure streamBackpressure() {
+        return new StreamBackpressure();
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "movies-info.tracing")
+    public SignalTracing signalTracing() {
+        return new SignalTracing();
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "movies-info.codec")
+    public CodecProperties codecProperties() {
+        CodecProperties properties = new CodecProperties();
+        properties.setWarmUpTypes(List.of(MovieInfo.class, MovieInfoEvent.class, BulkItemResult.class));
+        return properties;
+    }
+
+    @Bean
+    public InFlightRequestsFilter inFlightRequestsFilter() {
+        return new InFlightRequestsFilter();
+    }
+}
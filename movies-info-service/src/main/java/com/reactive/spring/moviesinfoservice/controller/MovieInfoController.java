@@ -1,15 +1,26 @@
 package com.reactive.spring.moviesinfoservice.controller;
 
-import java.util.Map;
+import java.util.*;
 
+import javax.annotation.PostConstruct;
 import javax.validation.Valid;
 
-import com.reactive.spring.moviesinfoservice.domain.MovieInfo;
+import com.reactive.spring.moviesinfoservice.config.*;
+import com.reactive.spring.moviesinfoservice.domain.*;
 import com.reactive.spring.moviesinfoservice.service.MovieInfoService;
+import com.reactive.spring.moviesinfoservice.stream.MovieInfoChangeStream;
+import com.reactivespring.common.bulk.BulkItemResult;
+import com.reactivespring.common.codec.CodecConfig;
+import com.reactivespring.common.stream.StreamBackpressure;
+import com.reactivespring.common.trace.SignalTracing;
 
+import org.bson.json.JsonParseException;
 import org.springframework.http.*;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import io.micrometer.core.instrument.*;
 import lombok.RequiredArgsConstructor;
 import reactor.core.publisher.*;
 
@@ -19,30 +30,89 @@ import reactor.core.publisher.*;
 public class MovieInfoController {
 
     public static final String MOVIE_INFO_CONTROLLER_PATH = "/v1/movies/info";
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     private final MovieInfoService movieInfoService;
+    private final Optional<MovieInfoChangeStream> movieInfoChangeStream;
+    private final StreamBackpressure streamBackpressure;
+    private final MovieInfoListProperties listProperties;
+    private final SignalTracing signalTracing;
 
     private final Sinks.Many<MovieInfo> movieInfoSink = Sinks.many().replay().all();
 
+    @PostConstruct
+    void init() {
+        Gauge.builder("stream.sink.subscribers", movieInfoSink, Sinks.Many::currentSubscriberCount)
+                .tag("stream", "movie-info")
+                .register(Metrics.globalRegistry);
+    }
+
     @GetMapping("/list")
     public Flux<MovieInfo> getAllMoviesInfo(
             @RequestParam(name = "year", required = false) Integer year,
-            @RequestParam(name = "name", required = false) String movieName) {
+            @RequestParam(name = "name", required = false) String movieName,
+            @RequestParam(name = "pageSize", required = false) Integer pageSize,
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "fields", required = false) String fields,
+            ServerHttpResponse response) {
+
+        int maxResults = listProperties.getMaxResults();
+        Set<String> properties = movieInfoFields(fields);
+
+        if (pageSize != null || after != null) {
+            return getMovieInfoPage(year, movieName, after, pageSize, properties, response)
+                    .transform(signalTracing.flux("movie-info.page"));
+        }
+        return getMovieInfos(year, movieName, properties)
+                .take(maxResults)
+                .transform(signalTracing.flux("movie-info.list"));
+    }
 
+    private Flux<MovieInfo> getMovieInfos(Integer year, String movieName, Set<String> properties) {
+
+        if (!properties.isEmpty()) {
+            return movieInfoService.getMovieInfo(year, movieName, properties);
+        }
+        if (year != null && movieName != null) {
+            return movieInfoService.getMovieByYearAndName(year, movieName);
+        }
         if (year != null && movieName == null) {
-            return movieInfoService.getMovieByYear(year).log();
+            return movieInfoService.getMovieByYear(year);
         }
         if (year == null && movieName != null) {
-            return movieInfoService.getMovieByName(movieName).log();
+            return movieInfoService.getMovieByName(movieName);
         }
-        return movieInfoService.getAllMovieInfo().log();
+        return movieInfoService.getAllMovieInfo();
+    }
+
+    private Flux<MovieInfo> getMovieInfoPage(Integer year, String movieName, String after, Integer requestedPageSize,
+            Set<String> properties, ServerHttpResponse response) {
+
+        int pageSize = Math.min(requestedPageSize == null ? listProperties.getDefaultPageSize() : requestedPageSize,
+                listProperties.getMaxPageSize());
+        if (pageSize <= 0) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "pageSize must be positive"));
+        }
+
+        // one extra movie tells whether another page follows, the page itself is bounded so collecting is safe
+        return movieInfoService.getMovieInfoPage(year, movieName, after, pageSize + 1, properties)
+                .collectList()
+                .flatMapIterable(movieInfos -> {
+                    if (movieInfos.size() <= pageSize) {
+                        return movieInfos;
+                    }
+                    List<MovieInfo> page = movieInfos.subList(0, pageSize);
+                    response.getHeaders().set(NEXT_CURSOR_HEADER, page.get(pageSize - 1).getMovieInfoId());
+                    return page;
+                });
     }
 
     @GetMapping("/{movieInfoId}")
     public Mono<ResponseEntity<MovieInfo>> getMovieInfoById(@PathVariable String movieInfoId) {
         return movieInfoService.getMovieInfoById(movieInfoId)
                 .map(ResponseEntity.ok()::body)
-                .switchIfEmpty(Mono.just(ResponseEntity.notFound().build())).log();
+                .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()))
+                .transform(signalTracing.mono("movie-info.get"));
     }
 
     @PostMapping("/add")
@@ -50,13 +120,59 @@ public class MovieInfoController {
     public Mono<MovieInfo> addMovieInfo(@RequestBody @Valid MovieInfo movieInfo) {
         return movieInfoService.addMovieInfo(movieInfo)
                 // publish that movie to something -> MovieInfoSink
-                .doOnNext(movieInfoSink::tryEmitNext);
+                .doOnNext(this::publish);
     }
 
-    @GetMapping(path = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
-    public Flux<MovieInfo> getMovieInfoById() {
+    @PostMapping(path = "/bulk",
+            consumes = { MediaType.APPLICATION_NDJSON_VALUE, CodecConfig.APPLICATION_STREAM_SMILE_VALUE },
+            produces = { MediaType.APPLICATION_NDJSON_VALUE, CodecConfig.APPLICATION_STREAM_SMILE_VALUE })
+    public Flux<BulkItemResult> addMovieInfos(@RequestBody Flux<MovieInfo> movieInfos) {
+        // bulk inserts bypass the sink, /stream only sees them when driven by the change stream
+        return movieInfoService.addMovieInfos(movieInfos);
+    }
+
+    @GetMapping(path = "/stream", produces = { MediaType.APPLICATION_NDJSON_VALUE,
+            CodecConfig.APPLICATION_STREAM_SMILE_VALUE })
+    public Flux<MovieInfo> getMovieInfoStream(@RequestParam(name = "fields", required = false) String fields) {
+
+        Set<String> properties = movieInfoFields(fields);
+
         // subscriber to this movie info
-        return movieInfoSink.asFlux().log();
+        return movieInfoChangeStream
+                .map(MovieInfoChangeStream::movieInfos)
+                .orElseGet(movieInfoSink::asFlux)
+                .map(movieInfo -> MovieInfoFields.project(movieInfo, properties))
+                .transform(streamBackpressure.perSubscriber("movie-info"))
+                .transform(signalTracing.flux("movie-info.stream"));
+    }
+
+    private static Set<String> movieInfoFields(String fields) {
+        try {
+            return MovieInfoFields.parse(fields);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+    }
+
+    @GetMapping(path = "/stream/events", produces = { MediaType.APPLICATION_NDJSON_VALUE,
+            CodecConfig.APPLICATION_STREAM_SMILE_VALUE })
+    public Flux<MovieInfoEvent> getMovieInfoEvents(
+            @RequestParam(name = "resumeToken", required = false) String resumeToken) {
+
+        return movieInfoChangeStream
+                .map(changeStream -> changeStream.events(Optional.ofNullable(resumeToken))
+                        .onErrorMap(JsonParseException.class, ex -> new ResponseStatusException(
+                                HttpStatus.BAD_REQUEST, "resumeToken is not a valid resume token"))
+                        .transform(streamBackpressure.perSubscriber("movie-info-events")))
+                .orElseGet(() -> Flux.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Movie info events require the change stream to be enabled")));
+    }
+
+    private void publish(MovieInfo movieInfo) {
+        // with the change stream enabled mongo publishes the write to every replica, this one included
+        if (movieInfoChangeStream.isEmpty()) {
+            movieInfoSink.tryEmitNext(movieInfo);
+        }
     }
 
     @PutMapping("/{movieInfoId}")
@@ -65,13 +181,14 @@ public class MovieInfoController {
         return movieInfoService.updateMovieInfo(updatedMovieInfo, movieInfoId)
                 .map(ResponseEntity.accepted()::body)
                 .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()))
-                .log();
+                .transform(signalTracing.mono("movie-info.update"));
 
     }
 
     @DeleteMapping("/{movieInfoId}")
     @ResponseStatus(code = HttpStatus.ACCEPTED)
     public Mono<Void> deleteMovieById(@PathVariable String movieInfoId) {
-        return movieInfoService.deleteMovieInfoById(movieInfoId).log();
+        return movieInfoService.deleteMovieInfoById(movieInfoId)
+                .transform(signalTracing.mono("movie-info.delete"));
     }
 }
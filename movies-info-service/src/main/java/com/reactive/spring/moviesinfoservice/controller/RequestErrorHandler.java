@@ -25,6 +25,9 @@ public class RequestErrorHandler {
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity<String> handleNotFoundException(ResponseStatusException rse) {
         System.err.println("You hit the not found exception");
+        if (!HttpStatus.NOT_FOUND.equals(rse.getStatus())) {
+            return new ResponseEntity<>(rse.getReason(), rse.getStatus());
+        }
         return new ResponseEntity<>("Not Found " + rse.getMessage(), HttpStatus.NOT_FOUND);
     }
 }
@@ -8,6 +8,7 @@ import javax.validation.constraints.*;
 import com.fasterxml.jackson.annotation.*;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.*;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.*;
@@ -17,12 +18,17 @@ import lombok.*;
 @AllArgsConstructor
 @Document
 @Builder
+// projected reads leave the fields that were not selected null
+@JsonInclude(JsonInclude.Include.NON_NULL)
+// also serves year-only lookups through its prefix
+@CompoundIndex(name = "year_name", def = "{'year': 1, 'name': 1}")
 public class MovieInfo {
 
     @Id
     private String movieInfoId;
 
     @NotBlank(message = "Movie Info Name cannot be blank")
+    @Indexed
     private String name;
 
     @NotNull(message = "Year cannot be empty")
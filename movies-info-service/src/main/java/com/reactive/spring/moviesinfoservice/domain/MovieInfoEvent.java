@@ -0,0 +1,20 @@
+package com.reactive.spring.moviesinfoservice.domain;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MovieInfoEvent {
+
+    public enum Operation {
+        INSERT, UPDATE, DELETE
+    }
+
+    private Operation operation;
+    private String movieInfoId;
+    // null for deletes
+    private MovieInfo movieInfo;
+    private String resumeToken;
+}
@@ -0,0 +1,63 @@
+package com.reactive.spring.moviesinfoservice.domain;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * The {@code fields=} projection of {@link MovieInfo}, keyed by the JSON names clients see. The id is always
+ * part of a projection.
+ */
+public final class MovieInfoFields {
+
+    public static final String SEPARATOR = ",";
+
+    private static final Map<String, String> PROPERTIES = Map.of(
+            "movieInfoId", "movieInfoId",
+            "name", "name",
+            "year", "year",
+            "cast", "cast",
+            "release_date", "releaseDate");
+
+    private MovieInfoFields() {
+    }
+
+    /**
+     * @return the document properties selected by a comma separated list of JSON field names, empty for all of them
+     * @throws IllegalArgumentException on an unknown field
+     */
+    public static Set<String> parse(String fields) {
+
+        if (fields == null || fields.isBlank()) {
+            return Set.of();
+        }
+
+        Set<String> properties = new LinkedHashSet<>();
+        properties.add("movieInfoId");
+        for (String field : fields.split(SEPARATOR)) {
+            String property = PROPERTIES.get(field.trim());
+            if (property == null) {
+                throw new IllegalArgumentException("Unknown field " + field.trim() + ", expected one of "
+                        + PROPERTIES.keySet().stream().sorted().collect(Collectors.joining(SEPARATOR)));
+            }
+            properties.add(property);
+        }
+        return properties;
+    }
+
+    /**
+     * Applies a projection to a movie that was read in full, e.g. one coming off the stream.
+     */
+    public static MovieInfo project(MovieInfo movieInfo, Set<String> properties) {
+
+        if (properties.isEmpty()) {
+            return movieInfo;
+        }
+        return MovieInfo.builder()
+                .movieInfoId(movieInfo.getMovieInfoId())
+                .name(properties.contains("name") ? movieInfo.getName() : null)
+                .year(properties.contains("year") ? movieInfo.getYear() : null)
+                .cast(properties.contains("cast") ? movieInfo.getCast() : null)
+                .releaseDate(properties.contains("releaseDate") ? movieInfo.getReleaseDate() : null)
+                .build();
+    }
+}
@@ -0,0 +1,18 @@
+package com.reactive.spring.moviesinfoservice.repository;
+
+import java.util.Collection;
+
+import com.reactive.spring.moviesinfoservice.domain.MovieInfo;
+
+import org.springframework.data.mongodb.core.query.Query;
+
+import reactor.core.publisher.Flux;
+
+public interface MovieInfoProjectionRepository {
+
+    /**
+     * Runs the query reading only the given properties, the rest of each movie is left null. Reads every property
+     * when none are given.
+     */
+    Flux<MovieInfo> findProjected(Query query, Collection<String> properties);
+}
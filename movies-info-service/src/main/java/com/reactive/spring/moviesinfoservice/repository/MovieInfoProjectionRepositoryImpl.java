@@ -0,0 +1,28 @@
+package com.reactive.spring.moviesinfoservice.repository;
+
+import java.util.Collection;
+
+import com.reactive.spring.moviesinfoservice.domain.MovieInfo;
+
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+
+@RequiredArgsConstructor
+public class MovieInfoProjectionRepositoryImpl implements MovieInfoProjectionRepository {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Flux<MovieInfo> findProjected(Query query, Collection<String> properties) {
+
+        if (properties.isEmpty()) {
+            return mongoTemplate.find(query, MovieInfo.class);
+        }
+        Query projected = Query.of(query);
+        projected.fields().include(properties.toArray(String[]::new));
+        return mongoTemplate.find(projected, MovieInfo.class);
+    }
+}
@@ -2,13 +2,21 @@ package com.reactive.spring.moviesinfoservice.repository;
 
 import com.reactive.spring.moviesinfoservice.domain.MovieInfo;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 
 import reactor.core.publisher.Flux;
 
-public interface MovieInfoRepository extends ReactiveMongoRepository<MovieInfo, String> {
+public interface MovieInfoRepository
+        extends ReactiveMongoRepository<MovieInfo, String>, MovieInfoProjectionRepository {
 
     Flux<MovieInfo> findByYear(Integer year);
 
     Flux<MovieInfo> findByName(String name);
+
+    Flux<MovieInfo> findByYearAndName(Integer year, String name);
+
+    Flux<MovieInfo> findByOrderByMovieInfoIdAsc(Pageable pageable);
+
+    Flux<MovieInfo> findByMovieInfoIdGreaterThanOrderByMovieInfoIdAsc(String movieInfoId, Pageable pageable);
 }
@@ -1,6 +1,9 @@
 package com.reactive.spring.moviesinfoservice.service;
 
-import com.reactive.spring.moviesinfoservice.domain.MovieInfo;
+import java.util.Set;
+
+import com.reactive.spring.moviesinfoservice.domain.*;
+import com.reactivespring.common.bulk.BulkItemResult;
 
 import reactor.core.publisher.*;
 
@@ -10,12 +13,30 @@ public interface MovieInfoService {
 
     public Flux<MovieInfo> getAllMovieInfo();
 
+    /**
+     * Validates and inserts the movies in batches, one result per movie in the order they were received.
+     */
+    public Flux<BulkItemResult> addMovieInfos(Flux<MovieInfo> movieInfos);
+
+    /**
+     * Up to pageSize movies matching the optional year and name, ordered by id and starting after the given one.
+     */
+    public Flux<MovieInfo> getMovieInfoPage(Integer movieYear, String name, String afterMovieInfoId, int pageSize,
+            Set<String> fields);
+
+    /**
+     * Movies matching the optional year and name, reading only the given fields from the database.
+     */
+    public Flux<MovieInfo> getMovieInfo(Integer movieYear, String name, Set<String> fields);
+
     public Mono<MovieInfo> getMovieInfoById(String movieInfoId);
 
     public Flux<MovieInfo> getMovieByYear(Integer movieYear);
 
     public Flux<MovieInfo> getMovieByName(String name);
 
+    public Flux<MovieInfo> getMovieByYearAndName(Integer movieYear, String name);
+
     public Mono<MovieInfo> updateMovieInfo(MovieInfo updatedMovieInfo, String movieInfoId);
 
     public Mono<Void> deleteMovieInfoById(String movieInfoId);
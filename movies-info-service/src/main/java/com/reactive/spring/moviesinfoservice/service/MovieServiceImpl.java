@@ -1,8 +1,13 @@
 package com.reactive.spring.moviesinfoservice.service;
 
-import com.reactive.spring.moviesinfoservice.domain.MovieInfo;
-import com.reactive.spring.moviesinfoservice.repository.MovieInfoRepository;
+import java.util.Set;
 
+import com.reactive.spring.moviesinfoservice.domain.*;
+import com.reactive.spring.moviesinfoservice.repository.*;
+import com.reactivespring.common.bulk.*;
+
+import org.springframework.data.domain.*;
+import org.springframework.data.mongodb.core.query.*;
 import org.springframework.stereotype.Service;
 
 import lombok.RequiredArgsConstructor;
@@ -12,18 +17,61 @@ import reactor.core.publisher.*;
 @RequiredArgsConstructor
 public class MovieServiceImpl implements MovieInfoService {
 
+    private static final String MOVIE_INFO_ID = "movieInfoId";
+
     private final MovieInfoRepository movieInfoRepository;
+    private final BulkInserter bulkInserter;
 
     @Override
     public Mono<MovieInfo> addMovieInfo(MovieInfo movieInfo) {
         return movieInfoRepository.save(movieInfo);
     }
 
+    @Override
+    public Flux<BulkItemResult> addMovieInfos(Flux<MovieInfo> movieInfos) {
+        return bulkInserter.insert(movieInfos, MovieInfo.class);
+    }
+
     @Override
     public Flux<MovieInfo> getAllMovieInfo() {
         return movieInfoRepository.findAll();
     }
 
+    @Override
+    public Flux<MovieInfo> getMovieInfoPage(Integer movieYear, String movieName, String afterMovieInfoId,
+            int pageSize, Set<String> fields) {
+
+        PageRequest page = PageRequest.of(0, pageSize);
+        if (movieYear != null || movieName != null || !fields.isEmpty()) {
+            Query query = byYearAndName(movieYear, movieName).with(page).with(Sort.by(MOVIE_INFO_ID));
+            if (afterMovieInfoId != null) {
+                query.addCriteria(Criteria.where(MOVIE_INFO_ID).gt(afterMovieInfoId));
+            }
+            return movieInfoRepository.findProjected(query, fields);
+        }
+        if (afterMovieInfoId == null) {
+            return movieInfoRepository.findByOrderByMovieInfoIdAsc(page);
+        }
+        return movieInfoRepository.findByMovieInfoIdGreaterThanOrderByMovieInfoIdAsc(afterMovieInfoId, page);
+    }
+
+    @Override
+    public Flux<MovieInfo> getMovieInfo(Integer movieYear, String movieName, Set<String> fields) {
+        return movieInfoRepository.findProjected(byYearAndName(movieYear, movieName), fields);
+    }
+
+    private static Query byYearAndName(Integer movieYear, String movieName) {
+
+        Query query = new Query();
+        if (movieYear != null) {
+            query.addCriteria(Criteria.where("year").is(movieYear));
+        }
+        if (movieName != null) {
+            query.addCriteria(Criteria.where("name").is(movieName));
+        }
+        return query;
+    }
+
     @Override
     public Mono<MovieInfo> getMovieInfoById(String movieInfoId) {
         return movieInfoRepository.findById(movieInfoId);
@@ -57,4 +105,9 @@ public class MovieServiceImpl implements MovieInfoService {
     public Flux<MovieInfo> getMovieByName(String movieName) {
         return movieInfoRepository.findByName(movieName);
     }
+
+    @Override
+    public Flux<MovieInfo> getMovieByYearAndName(Integer movieYear, String movieName) {
+        return movieInfoRepository.findByYearAndName(movieYear, movieName);
+    }
 }
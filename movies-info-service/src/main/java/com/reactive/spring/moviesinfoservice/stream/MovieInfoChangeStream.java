@@ -0,0 +1,64 @@
+package com.reactive.spring.moviesinfoservice.stream;
+
+import java.util.Optional;
+
+import com.reactive.spring.moviesinfoservice.domain.*;
+import com.reactive.spring.moviesinfoservice.domain.MovieInfoEvent.Operation;
+import com.reactivespring.common.stream.ChangeStreamFeed;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.*;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Live movie info feed driven by a MongoDB change stream, so every replica
+ * sees inserts, updates and deletes regardless of which pod handled the
+ * write. Requires a replica set (or sharded cluster).
+ */
+@Component
+@ConditionalOnProperty(prefix = "movies-info.stream.change-stream", name = "enabled", havingValue = "true")
+public class MovieInfoChangeStream extends ChangeStreamFeed<MovieInfo, MovieInfoEvent> {
+
+    public MovieInfoChangeStream(ReactiveMongoTemplate reactiveMongoTemplate) {
+        super(reactiveMongoTemplate, MovieInfo.class, "Movie info");
+    }
+
+    public Flux<MovieInfo> movieInfos() {
+        return events(Optional.empty())
+                .filter(event -> event.getOperation() != Operation.DELETE)
+                .map(MovieInfoEvent::getMovieInfo);
+    }
+
+    @Override
+    protected Optional<MovieInfoEvent> toEvent(ChangeStreamEvent<MovieInfo> event) {
+
+        if (event.getRaw() == null) {
+            return Optional.empty();
+        }
+
+        Operation operation;
+        switch (event.getOperationType()) {
+            case INSERT:
+                operation = Operation.INSERT;
+                break;
+            case UPDATE:
+            case REPLACE:
+                operation = Operation.UPDATE;
+                break;
+            case DELETE:
+                operation = Operation.DELETE;
+                break;
+            default:
+                return Optional.empty();
+        }
+
+        return Optional.of(MovieInfoEvent.builder()
+                .operation(operation)
+                .movieInfoId(documentId(event))
+                .movieInfo(event.getBody())
+                .resumeToken(resumeToken(event))
+                .build());
+    }
+}
@@ -5,21 +5,28 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDate;
-import java.util.List;
+import java.util.*;
 
-import com.reactive.spring.moviesinfoservice.domain.MovieInfo;
+import com.reactive.spring.moviesinfoservice.config.*;
+import com.reactive.spring.moviesinfoservice.domain.*;
 import com.reactive.spring.moviesinfoservice.service.MovieInfoService;
+import com.reactivespring.common.bulk.BulkItemResult;
+import com.reactivespring.common.codec.CodecConfig;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.*;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
 import reactor.core.publisher.*;
+import reactor.test.StepVerifier;
 
 @WebFluxTest(controllers = MovieInfoController.class)
+@Import({ MoviesCommonConfig.class, MovieInfoListProperties.class })
 @AutoConfigureWebTestClient
 @ActiveProfiles("unit-test")
 public class MovieInfoControllerUnitTest {
@@ -62,6 +69,91 @@ public class MovieInfoControllerUnitTest {
                 .hasSize(2);
     }
 
+    @Test
+    public void testGetMoviesByYearAndName() {
+        when(movieInfoService.getMovieByYearAndName(2021, "Yoda")).thenReturn(Flux.just(getMovieInfo()));
+
+        webTestClient.get().uri(movieInfoPath + "/list?year=2021&name=Yoda")
+                .exchange()
+                .expectStatus().is2xxSuccessful()
+                .expectBodyList(MovieInfo.class)
+                .hasSize(1);
+    }
+
+    @Test
+    public void testGetMoviesProjection() {
+
+        MovieInfo projected = MovieInfo.builder().movieInfoId("a").name("Yoda").build();
+        when(movieInfoService.getMovieInfo(null, null, Set.of("movieInfoId", "name")))
+                .thenReturn(Flux.just(projected));
+
+        webTestClient.get().uri(movieInfoPath + "/list?fields=name")
+                .exchange()
+                .expectStatus().is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$[0].name").isEqualTo("Yoda")
+                .jsonPath("$[0].cast").doesNotExist();
+    }
+
+    @Test
+    public void testGetMoviesProjection_UnknownField() {
+
+        webTestClient.get().uri(movieInfoPath + "/list?fields=name,budget")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void testGetMovieInfoPage() {
+
+        MovieInfo first = getMovieInfo();
+        first.setMovieInfoId("a");
+        MovieInfo second = getMovieInfo();
+        second.setMovieInfoId("b");
+        MovieInfo third = getMovieInfo();
+        third.setMovieInfoId("c");
+        when(movieInfoService.getMovieInfoPage(null, null, null, 3, Set.of())).thenReturn(Flux.just(first, second, third));
+
+        webTestClient.get().uri(movieInfoPath + "/list?pageSize=2")
+                .exchange()
+                .expectStatus().is2xxSuccessful()
+                .expectHeader().valueEquals(MovieInfoController.NEXT_CURSOR_HEADER, "b")
+                .expectBodyList(MovieInfo.class)
+                .hasSize(2);
+    }
+
+    @Test
+    public void testGetMovieInfoPage_LastPage() {
+
+        MovieInfo last = getMovieInfo();
+        last.setMovieInfoId("c");
+        when(movieInfoService.getMovieInfoPage(null, null, "b", 3, Set.of())).thenReturn(Flux.just(last));
+
+        webTestClient.get().uri(movieInfoPath + "/list?pageSize=2&after=b")
+                .exchange()
+                .expectStatus().is2xxSuccessful()
+                .expectHeader().doesNotExist(MovieInfoController.NEXT_CURSOR_HEADER)
+                .expectBodyList(MovieInfo.class)
+                .hasSize(1);
+    }
+
+    @Test
+    public void testGetMovieInfoPage_ByYear() {
+
+        MovieInfo first = getMovieInfo();
+        first.setMovieInfoId("a");
+        MovieInfo second = getMovieInfo();
+        second.setMovieInfoId("b");
+        when(movieInfoService.getMovieInfoPage(2021, null, null, 2, Set.of())).thenReturn(Flux.just(first, second));
+
+        webTestClient.get().uri(movieInfoPath + "/list?year=2021&pageSize=1")
+                .exchange()
+                .expectStatus().is2xxSuccessful()
+                .expectHeader().valueEquals(MovieInfoController.NEXT_CURSOR_HEADER, "a")
+                .expectBodyList(MovieInfo.class)
+                .hasSize(1);
+    }
+
     @Test
     public void testGetMovieInfoById() {
         when(movieInfoService.getMovieInfoById(anyString())).thenReturn(Mono.just(getMovieInfo()));
@@ -74,6 +166,38 @@ public class MovieInfoControllerUnitTest {
                 .isEqualTo("Yoda");
     }
 
+    @Test
+    public void testGetMovieInfoById_Smile() {
+        when(movieInfoService.getMovieInfoById(anyString())).thenReturn(Mono.just(getMovieInfo()));
+
+        webTestClient.get().uri(movieInfoPath + "/{id}", "abcd")
+                .accept(CodecConfig.APPLICATION_SMILE, MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().is2xxSuccessful()
+                .expectHeader().contentType(CodecConfig.APPLICATION_SMILE)
+                .expectBody(MovieInfo.class)
+                .value(movieInfo -> assertEquals("Yoda", movieInfo.getName()));
+    }
+
+    @Test
+    public void testCreateMovieInfos_Smile() {
+
+        when(movieInfoService.addMovieInfos(any())).thenReturn(Flux.just(BulkItemResult.created(0, "a")));
+
+        webTestClient.post().uri(movieInfoPath + "/bulk")
+                .contentType(CodecConfig.APPLICATION_STREAM_SMILE)
+                .accept(CodecConfig.APPLICATION_STREAM_SMILE)
+                .body(Flux.just(getMovieInfo()), MovieInfo.class)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(CodecConfig.APPLICATION_STREAM_SMILE)
+                .returnResult(BulkItemResult.class)
+                .getResponseBody()
+                .as(StepVerifier::create)
+                .assertNext(result -> assertEquals("a", result.getId()))
+                .verifyComplete();
+    }
+
     @Test
     public void testCreateMovieInfo() {
 
@@ -88,6 +212,26 @@ public class MovieInfoControllerUnitTest {
                 .isEqualTo("2021");
     }
 
+    @Test
+    public void testCreateMovieInfos() {
+
+        when(movieInfoService.addMovieInfos(any())).thenReturn(Flux.just(
+                BulkItemResult.created(0, "a"),
+                BulkItemResult.failed(1, "duplicate key")));
+
+        webTestClient.post().uri(movieInfoPath + "/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"name\": \"Yoda\"}\n{\"name\": \"Yoda\"}\n")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(BulkItemResult.class)
+                .getResponseBody()
+                .as(StepVerifier::create)
+                .assertNext(result -> assertEquals("a", result.getId()))
+                .assertNext(result -> assertEquals(BulkItemResult.Status.FAILED, result.getStatus()))
+                .verifyComplete();
+    }
+
     @Test
     public void testCreateMovieInfo_ValidationNameValidationError() {
 
@@ -127,6 +271,14 @@ public class MovieInfoControllerUnitTest {
                 .isEqualTo("apple");
     }
 
+    @Test
+    public void testGetMovieInfoEvents_ChangeStreamDisabled() {
+
+        webTestClient.get().uri(movieInfoPath + "/stream/events")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
     @Test
     public void testDeleteMovieInfo() {
 
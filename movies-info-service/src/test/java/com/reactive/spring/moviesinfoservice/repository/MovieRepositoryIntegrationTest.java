@@ -1,17 +1,21 @@
 package com.reactive.spring.moviesinfoservice.repository;
 
+import static com.reactivespring.common.test.MongoIndexAssertions.assertIndexScan;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.time.LocalDate;
-import java.util.List;
+import java.util.*;
 
 import com.reactive.spring.moviesinfoservice.domain.MovieInfo;
 
+import org.bson.Document;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.test.context.ActiveProfiles;
 
+import reactor.core.publisher.*;
 import reactor.test.StepVerifier;
 
 @DataMongoTest
@@ -21,6 +25,9 @@ public class MovieRepositoryIntegrationTest {
     @Autowired
     private MovieInfoRepository movieInfoRepository;
 
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
     private MovieInfo movie1 = MovieInfo.builder().name("Welcome 1").cast(List.of("bob", "jill"))
             .releaseDate(LocalDate.parse("2021-01-01")).year(2021).build();
     private MovieInfo movie2 = MovieInfo.builder().name("Welcome 2").cast(List.of("bob2", "jill2"))
@@ -113,4 +120,29 @@ public class MovieRepositoryIntegrationTest {
                 })
                 .verifyComplete();
     }
+
+    @Test
+    public void findMovieByYearAndName() {
+        StepVerifier.create(movieInfoRepository.findByYearAndName(2022, "Welcome 2").log())
+                .assertNext(movie -> assertEquals(movie2.getName(), movie.getName()))
+                .verifyComplete();
+
+        StepVerifier.create(movieInfoRepository.findByYearAndName(2021, "Welcome 2").log())
+                .verifyComplete();
+    }
+
+    @Test
+    public void findMovieByYear_UsesIndex() {
+        assertIndexScan(mongoTemplate, MovieInfo.class, new Document("year", 2021));
+    }
+
+    @Test
+    public void findMovieByName_UsesIndex() {
+        assertIndexScan(mongoTemplate, MovieInfo.class, new Document("name", "Welcome 1"));
+    }
+
+    @Test
+    public void findMovieByYearAndName_UsesIndex() {
+        assertIndexScan(mongoTemplate, MovieInfo.class, new Document("year", 2021).append("name", "Welcome 1"));
+    }
 }
@@ -0,0 +1,24 @@
+package com.reactivespring.config;
+
+import javax.validation.Validator;
+
+import com.reactivespring.common.bulk.*;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.*;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+@Configuration
+public class BulkConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "reviews.bulk")
+    public BulkProperties bulkProperties() {
+        return new BulkProperties();
+    }
+
+    @Bean
+    public BulkInserter bulkInserter(ReactiveMongoTemplate mongoTemplate, Validator validator) {
+        return new BulkInserter(mongoTemplate, validator, bulkProperties());
+    }
+}
@@ -0,0 +1,28 @@
+package com.reactivespring.config;
+
+import javax.validation.constraints.Positive;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import lombok.Data;
+
+@Component
+@ConfigurationProperties(prefix = "reviews.list")
+@Validated
+@Data
+public class ReviewListProperties {
+
+    @Positive
+    private int defaultPageSize = 100;
+
+    // larger requested pages are clamped to this
+    @Positive
+    private int maxPageSize = 500;
+
+    // hard cap on any json list response, paged or not, and on every list of all reviews, ndjson and stream-smile
+    // responses for given movie info ids are not capped
+    @Positive
+    private int maxResults = 1000;
+}
@@ -0,0 +1,49 @@
+package com.reactivespring.config;
+
+import com.reactivespring.domain.Review;
+
+import org.springframework.context.annotation.*;
+
+import io.micrometer.core.instrument.*;
+import reactor.core.publisher.*;
+
+@Configuration
+public class ReviewStreamConfig {
+
+    @Bean
+    public Sinks.Many<Review> reviewsReplaySink(ReviewStreamProperties properties) {
+
+        Sinks.Many<Review> sink = replaySink(properties);
+        Gauge.builder("stream.sink.subscribers", sink, Sinks.Many::currentSubscriberCount)
+                .tag("stream", "reviews")
+                .register(Metrics.globalRegistry);
+        return sink;
+    }
+
+    /**
+     * The reviews emitted from now on, without the replayed history. A resumed stream reads that history from mongo.
+     */
+    @Bean
+    public Flux<Review> reviewsLiveFlux(Sinks.Many<Review> reviewsReplaySink) {
+
+        // subscribed while the replay sink is still empty, so it forwards each review once and replays nothing
+        Sinks.Many<Review> live = Sinks.many().multicast().directBestEffort();
+        reviewsReplaySink.asFlux().subscribe(live::tryEmitNext);
+        return live.asFlux();
+    }
+
+    private static Sinks.Many<Review> replaySink(ReviewStreamProperties properties) {
+
+        switch (properties.getPolicy()) {
+            case NONE:
+                return Sinks.many().multicast().directBestEffort();
+            case AGE:
+                return Sinks.many().replay().limit(properties.getMaxAge());
+            case SIZE_AND_AGE:
+                return Sinks.many().replay().limit(properties.getHistorySize(), properties.getMaxAge());
+            case SIZE:
+            default:
+                return Sinks.many().replay().limit(properties.getHistorySize());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.reactivespring.config;
+
+import java.time.Duration;
+
+import javax.validation.constraints.*;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import lombok.Data;
+
+@Component
+@ConfigurationProperties(prefix = "reviews.stream.replay")
+@Validated
+@Data
+public class ReviewStreamProperties {
+
+    public enum ReplayPolicy {
+        // live reviews only, nothing is retained for late subscribers
+        NONE,
+        // retain the last history-size reviews
+        SIZE,
+        // retain reviews younger than max-age
+        AGE,
+        // retain at most history-size reviews younger than max-age
+        SIZE_AND_AGE
+    }
+
+    @NotNull
+    private ReplayPolicy policy = ReplayPolicy.SIZE;
+
+    @Positive
+    private int historySize = 1000;
+
+    @NotNull
+    private Duration maxAge = Duration.ofMinutes(5);
+
+    // live reviews held while a resumed stream reads its backfill from mongo, the stream fails once more arrive
+    @Positive
+    private int resumeHoldSize = 1000;
+}
@@ -3,6 +3,7 @@ package com.reactivespring.domain;
 import javax.validation.constraints.*;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.*;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.*;
@@ -11,6 +12,12 @@ import lombok.*;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document
+@CompoundIndexes({
+        // serves the per movie lookups and their keyset pages ordered by review id, either way
+        @CompoundIndex(name = "movieInfoId_reviewId", def = "{'movieInfoId': 1, '_id': 1}"),
+        // serves the per movie pages ordered by rating
+        @CompoundIndex(name = "movieInfoId_rating_reviewId", def = "{'movieInfoId': 1, 'rating': -1, '_id': -1}")
+})
 public class Review {
 
     @Id
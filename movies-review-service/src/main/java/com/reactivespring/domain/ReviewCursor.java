@@ -0,0 +1,47 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Position after the last review of a page. For the id orders the cursor is just the review id, for
+ * {@link ReviewSort#RATING} it is {@code <rating>_<reviewId>}, with an empty rating for unrated reviews.
+ */
+@Data
+@AllArgsConstructor
+public class ReviewCursor {
+
+    private static final String SEPARATOR = "_";
+
+    private String reviewId;
+    private Double rating;
+
+    public static ReviewCursor of(Review review) {
+        return new ReviewCursor(review.getReviewId(), review.getRating());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor does not fit the sort
+     */
+    public static ReviewCursor decode(String cursor, ReviewSort sort) {
+
+        if (sort != ReviewSort.RATING) {
+            return new ReviewCursor(cursor, null);
+        }
+
+        int separator = cursor.indexOf(SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("expected <rating>" + SEPARATOR + "<reviewId>");
+        }
+        String rating = cursor.substring(0, separator);
+        return new ReviewCursor(cursor.substring(separator + 1), rating.isEmpty() ? null : Double.valueOf(rating));
+    }
+
+    public String encode(ReviewSort sort) {
+
+        if (sort != ReviewSort.RATING) {
+            return reviewId;
+        }
+        return (rating == null ? "" : rating.toString()) + SEPARATOR + reviewId;
+    }
+}
@@ -0,0 +1,19 @@
+package com.reactivespring.domain;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewEvent {
+
+    public enum Operation {
+        INSERT, UPDATE, DELETE
+    }
+
+    private Operation operation;
+    private String reviewId;
+    // null for deletes
+    private Review review;
+    private String resumeToken;
+}
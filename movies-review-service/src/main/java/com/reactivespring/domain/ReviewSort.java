@@ -0,0 +1,9 @@
+package com.reactivespring.domain;
+
+public enum ReviewSort {
+    // in the order the reviews were written, the default
+    OLDEST,
+    NEWEST,
+    // highest rating first, newest first among equal ratings and unrated reviews last
+    RATING
+}
@@ -0,0 +1,37 @@
+package com.reactivespring.domain;
+
+import java.util.*;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.*;
+
+/**
+ * Review aggregates of one movie, kept up to date as its reviews are added, updated and deleted.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document
+public class ReviewSummary {
+
+    @Id
+    private String movieInfoId;
+    private long count;
+    // reviews carrying a rating, the average is taken over these
+    private long ratedCount;
+    private double ratingSum;
+    // review count per whole rating point, keyed by the rating rounded down
+    @Builder.Default
+    private Map<String, Long> histogram = new TreeMap<>();
+
+    public static ReviewSummary empty(String movieInfoId) {
+        return ReviewSummary.builder().movieInfoId(movieInfoId).build();
+    }
+
+    public Double getAverageRating() {
+        return ratedCount == 0 ? null : ratingSum / ratedCount;
+    }
+}
@@ -1,22 +1,36 @@
 package com.reactivespring.handler;
 
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import javax.validation.*;
 
-import com.reactivespring.domain.Review;
+import com.reactivespring.common.bulk.*;
+import com.reactivespring.common.codec.CodecConfig;
+import com.reactivespring.common.stream.StreamBackpressure;
+import com.reactivespring.common.trace.SignalTracing;
+import com.reactivespring.config.*;
+import com.reactivespring.domain.*;
 import com.reactivespring.exception.*;
-import com.reactivespring.repository.ReviewReactiveRepository;
+import com.reactivespring.repository.*;
 import com.reactivespring.router.ReviewRouter;
+import com.reactivespring.stream.ReviewChangeStream;
 
+import org.bson.json.JsonParseException;
+import org.bson.types.ObjectId;
 import org.springframework.http.*;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.server.*;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.*;
 import reactor.core.publisher.*;
+import reactor.util.concurrent.Queues;
 
 @RequiredArgsConstructor
 @Slf4j
@@ -25,10 +39,26 @@ public class ReviewHandler {
 
     private final ReviewReactiveRepository reviewReactiveRepository;
     private final Validator validator;
-    private final Sinks.Many<Review> reviewsReplaySink = Sinks.many().replay().all();
+    private final Sinks.Many<Review> reviewsReplaySink;
+    private final Flux<Review> reviewsLiveFlux;
+    private final Optional<ReviewChangeStream> reviewChangeStream;
+    private final StreamBackpressure streamBackpressure;
+    private final ReviewListProperties listProperties;
+    private final ReviewStreamProperties streamProperties;
+    private final BulkInserter bulkInserter;
+    private final ReviewSummaryStore reviewSummaryStore;
+    private final SignalTracing signalTracing;
 
     private static final String MOVIE_INFO_ID_QUERY_PARAM = ReviewRouter.REVIEW_QUERY_PARAMETER_MOVIE_INFO_ID;
     private static final String REVIEW_ID_PATH_VARIABLE = ReviewRouter.REVIEW_PATH_PARAMETER;
+    private static final String MOVIE_INFO_ID_SEPARATOR = ReviewRouter.REVIEW_QUERY_PARAMETER_SEPARATOR;
+    private static final String AFTER_REVIEW_ID_QUERY_PARAM = ReviewRouter.REVIEW_STREAM_QUERY_PARAMETER_AFTER_REVIEW_ID;
+    private static final String SINCE_QUERY_PARAM = ReviewRouter.REVIEW_STREAM_QUERY_PARAMETER_SINCE;
+    private static final String RESUME_TOKEN_QUERY_PARAM = ReviewRouter.REVIEW_STREAM_QUERY_PARAMETER_RESUME_TOKEN;
+    private static final String PAGE_SIZE_QUERY_PARAM = ReviewRouter.REVIEW_QUERY_PARAMETER_PAGE_SIZE;
+    private static final String AFTER_QUERY_PARAM = ReviewRouter.REVIEW_QUERY_PARAMETER_AFTER;
+    private static final String SORT_QUERY_PARAM = ReviewRouter.REVIEW_QUERY_PARAMETER_SORT;
+    private static final String NEXT_CURSOR_HEADER = ReviewRouter.REVIEW_NEXT_CURSOR_HEADER;
 
     private void validate(Review review) {
         Set<ConstraintViolation<Review>> violations = validator.validate(review);
@@ -42,44 +72,281 @@ public class ReviewHandler {
         }
     }
 
+    // functional responses are written in the content type they are given, the accept header alone picks nothing, so
+    // the callers asking for smile are answered in it and every other caller keeps json
+    private static MediaType mediaType(ServerRequest request) {
+        return acceptsSmile(request, CodecConfig.APPLICATION_SMILE) ? CodecConfig.APPLICATION_SMILE
+                : MediaType.APPLICATION_JSON;
+    }
+
+    private static MediaType streamMediaType(ServerRequest request) {
+        return acceptsSmile(request, CodecConfig.APPLICATION_STREAM_SMILE) ? CodecConfig.APPLICATION_STREAM_SMILE
+                : MediaType.APPLICATION_NDJSON;
+    }
+
+    private static boolean acceptsSmile(ServerRequest request, MediaType smile) {
+        return request.headers().accept().stream().anyMatch(smile::equalsTypeAndSubtype);
+    }
+
+    private static boolean acceptsStream(ServerRequest request) {
+        return request.headers().accept().stream()
+                .anyMatch(accept -> MediaType.APPLICATION_NDJSON.equalsTypeAndSubtype(accept)
+                        || CodecConfig.APPLICATION_STREAM_SMILE.equalsTypeAndSubtype(accept));
+    }
+
+    private List<String> movieInfoIds(ServerRequest request) {
+        return request.queryParams().getOrDefault(MOVIE_INFO_ID_QUERY_PARAM, List.of()).stream()
+                .flatMap(value -> Arrays.stream(value.split(MOVIE_INFO_ID_SEPARATOR)))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
     public Mono<ServerResponse> getReviewsStream(ServerRequest request) {
+
+        Flux<Review> reviews = resumeReviewId(request)
+                .map(this::resumeReviewsStream)
+                .orElseGet(() -> perSubscriber(liveReviews()))
+                .transform(signalTracing.flux("reviews.stream"));
+
+        return ServerResponse
+                .ok()
+                .contentType(streamMediaType(request))
+                .body(reviews, Review.class);
+    }
+
+    private Optional<String> resumeReviewId(ServerRequest request) {
+
+        Optional<String> afterReviewId = request.queryParam(AFTER_REVIEW_ID_QUERY_PARAM);
+        if (afterReviewId.isPresent()) {
+            return afterReviewId;
+        }
+
+        // generated review ids are ObjectIds, so a timestamp maps onto the smallest id created at that time
+        return request.queryParam(SINCE_QUERY_PARAM).map(since -> {
+            try {
+                return ObjectId.getSmallestWithDate(Date.from(Instant.parse(since))).toHexString();
+            } catch (DateTimeParseException ex) {
+                throw new ReviewDataException(SINCE_QUERY_PARAM + " : must be an ISO-8601 instant");
+            }
+        });
+    }
+
+    private Flux<Review> resumeReviewsStream(String afterReviewId) {
+
+        return Flux.defer(() -> {
+            // subscribe to the live reviews before reading mongo and hold them until the backfill is done, a review
+            // saved in between is then in the backfill, the held live reviews or both, never in neither
+            int resumeHoldSize = streamProperties.getResumeHoldSize();
+            Sinks.Many<Review> heldReviews = Sinks.many().unicast()
+                    .onBackpressureBuffer(Queues.<Review>get(resumeHoldSize).get());
+            Disposable live = liveReviewsWithoutReplay()
+                    .filter(review -> isAfter(review.getReviewId(), afterReviewId))
+                    .subscribe(review -> {
+                        if (heldReviews.tryEmitNext(review) == Sinks.EmitResult.FAIL_OVERFLOW) {
+                            // the held reviews are delivered first, the client resumes after the last one it got
+                            heldReviews.tryEmitError(Exceptions.failWithOverflow(
+                                    "More than " + resumeHoldSize + " live reviews arrived during the backfill"));
+                        }
+                    }, heldReviews::tryEmitError, heldReviews::tryEmitComplete);
+
+            // the backfill is in id order, a held review is a duplicate when it is not after the last backfilled one
+            AtomicReference<String> lastBackfilledReviewId = new AtomicReference<>(afterReviewId);
+
+            return reviewReactiveRepository.findByReviewIdGreaterThanOrderByReviewIdAsc(afterReviewId)
+                    .doOnNext(review -> lastBackfilledReviewId.set(review.getReviewId()))
+                    // the backfill follows the demand of the client, only the live reviews are buffered for it
+                    .concatWith(perSubscriber(heldReviews.asFlux()
+                            .filter(review -> isAfter(review.getReviewId(), lastBackfilledReviewId.get()))))
+                    .doFinally(signal -> live.dispose());
+        });
+    }
+
+    public Mono<ServerResponse> getReviewEventsStream(ServerRequest request) {
+
+        if (reviewChangeStream.isEmpty()) {
+            return Mono.error(new ReviewNotFoundException("Review events require the change stream to be enabled"));
+        }
+
+        Optional<String> resumeToken = request.queryParam(RESUME_TOKEN_QUERY_PARAM);
+        Flux<ReviewEvent> events = reviewChangeStream.get().events(resumeToken)
+                .onErrorMap(JsonParseException.class,
+                        ex -> new ReviewDataException(RESUME_TOKEN_QUERY_PARAM + " : is not a valid resume token"))
+                .transform(streamBackpressure.perSubscriber("review-events"));
+
         return ServerResponse
                 .ok()
-                .contentType(MediaType.APPLICATION_NDJSON)
-                .body(reviewsReplaySink.asFlux(), Review.class)
-                .log();
+                .contentType(streamMediaType(request))
+                .body(events, ReviewEvent.class);
+    }
+
+    private Flux<Review> liveReviews() {
+        return reviewChangeStream
+                .map(ReviewChangeStream::reviews)
+                .orElseGet(reviewsReplaySink::asFlux);
+    }
+
+    // the replayed reviews are older than the subscription, a resumed stream finds them in its backfill
+    private Flux<Review> liveReviewsWithoutReplay() {
+        return reviewChangeStream
+                .map(ReviewChangeStream::reviews)
+                .orElse(reviewsLiveFlux);
+    }
+
+    private Flux<Review> perSubscriber(Flux<Review> reviews) {
+        return reviews.transform(streamBackpressure.perSubscriber("reviews"));
+    }
+
+    private void publish(Review review) {
+        // with the change stream enabled mongo publishes the write to every replica, this one included
+        if (reviewChangeStream.isEmpty()) {
+            reviewsReplaySink.tryEmitNext(review);
+        }
+    }
+
+    private static boolean isAfter(String reviewId, String lastReviewId) {
+
+        if (!ObjectId.isValid(reviewId) || !ObjectId.isValid(lastReviewId)) {
+            return true;
+        }
+        return new ObjectId(reviewId).compareTo(new ObjectId(lastReviewId)) > 0;
     }
 
     public Mono<ServerResponse> addReview(ServerRequest request) {
 
-        return request.bodyToMono(Review.class).log()
+        return request.bodyToMono(Review.class)
                 .doOnNext(this::validate)
-                .flatMap(reviewReactiveRepository::save).log()
-                .doOnNext(reviewsReplaySink::tryEmitNext)
-                .flatMap(ServerResponse.status(HttpStatus.CREATED)::bodyValue).log();
+                .flatMap(review -> summarized(reviewSummaryStore.add(review), reviewReactiveRepository.save(review),
+                        () -> reviewSummaryStore.remove(review)))
+                .doOnNext(this::publish)
+                .transform(signalTracing.mono("reviews.add"))
+                .flatMap(ServerResponse.status(HttpStatus.CREATED).contentType(mediaType(request))::bodyValue);
+    }
+
+    public Mono<ServerResponse> addReviews(ServerRequest request) {
+
+        Flux<BulkItemResult> results = bulkInserter.insert(request.bodyToFlux(Review.class), Review.class,
+                reviewSummaryStore::addAll, reviewSummaryStore::removeAll);
+
+        // bulk inserts bypass the sink, /stream only sees them when driven by the change stream
+        return ServerResponse
+                .ok()
+                .contentType(streamMediaType(request))
+                .body(results, BulkItemResult.class);
+    }
+
+    public Mono<ServerResponse> getReviewSummaries(ServerRequest request) {
+
+        List<String> movieInfoIds = movieInfoIds(request);
+        if (movieInfoIds.isEmpty()) {
+            return Mono.error(new ReviewDataException(MOVIE_INFO_ID_QUERY_PARAM + " : must not be empty"));
+        }
+
+        return ServerResponse
+                .ok()
+                .contentType(mediaType(request))
+                .body(reviewSummaryStore.findByMovieInfoIds(movieInfoIds), ReviewSummary.class);
     }
 
     public Mono<ServerResponse> getReviews(ServerRequest request) {
 
-        Optional<String> movieId = request.queryParam(MOVIE_INFO_ID_QUERY_PARAM);
+        List<String> movieInfoIds = movieInfoIds(request);
+        Optional<String> movieId = movieInfoIds.isEmpty() ? Optional.empty()
+                : Optional.of(String.join(MOVIE_INFO_ID_SEPARATOR, movieInfoIds));
+
+        Optional<String> pageSize = request.queryParam(PAGE_SIZE_QUERY_PARAM);
+        Optional<String> after = request.queryParam(AFTER_QUERY_PARAM);
+        Optional<String> sort = request.queryParam(SORT_QUERY_PARAM);
+        if (pageSize.isPresent() || after.isPresent() || sort.isPresent()) {
+            // keyset paging walks the reviews of one movie or of all of them, not of a batch
+            if (movieInfoIds.size() > 1) {
+                return Mono.error(new ReviewDataException(MOVIE_INFO_ID_QUERY_PARAM + " : paging takes a single id"));
+            }
+            return getReviewsPage(movieInfoIds.stream().findFirst(), after, pageSize, sort, mediaType(request));
+        }
 
         Flux<Review> reviews;
 
-        if (movieId.isPresent()) {
-            reviews = reviewReactiveRepository.findByMovieInfoId(movieId.get()).log();
+        if (movieInfoIds.size() == 1) {
+            reviews = reviewReactiveRepository.findByMovieInfoId(movieInfoIds.get(0));
+        } else if (movieInfoIds.size() > 1) {
+            // batch lookup, a single $in query instead of one request per movie
+            reviews = reviewReactiveRepository.findByMovieInfoIdIn(movieInfoIds);
         } else {
             reviews = reviewReactiveRepository.findAll();
         }
 
-        return reviews.hasElements().flatMap(hasElements -> {
-            if (Boolean.TRUE.equals(hasElements)) {
-                return ServerResponse.ok().body(reviews, Review.class);
+        // a json array is buffered by the client, a stream of the reviews of some movies is read review by review
+        // and needs no cap, the whole collection stays capped either way
+        boolean streaming = acceptsStream(request);
+        MediaType mediaType = streaming ? streamMediaType(request) : mediaType(request);
+        if (!streaming || movieInfoIds.isEmpty()) {
+            reviews = reviews.take(listProperties.getMaxResults());
+        }
+        reviews = reviews.transform(signalTracing.flux("reviews.list"));
+
+        // peek at the first review to pick the status, then stream the same subscription as the body
+        return reviews.switchOnFirst((first, allReviews) -> {
+            if (first.hasValue()) {
+                return ServerResponse.ok().contentType(mediaType).body(allReviews, Review.class);
+            }
+            if (first.isOnError()) {
+                return Mono.error(first.getThrowable());
             }
 
             String message = movieId.isPresent() ? "No Reviews found for movie info id " + movieId.get()
                     : "No Reviews found";
             return Mono.error(new ReviewNotFoundException(message));
-        });
+        }, false).singleOrEmpty();
+    }
+
+    private Mono<ServerResponse> getReviewsPage(Optional<String> movieInfoId, Optional<String> after,
+            Optional<String> requestedPageSize, Optional<String> requestedSort, MediaType mediaType) {
+
+        int pageSize;
+        try {
+            pageSize = Math.min(requestedPageSize.map(Integer::parseInt).orElse(listProperties.getDefaultPageSize()),
+                    listProperties.getMaxPageSize());
+        } catch (NumberFormatException ex) {
+            return Mono.error(new ReviewDataException(PAGE_SIZE_QUERY_PARAM + " : must be a number"));
+        }
+        if (pageSize <= 0) {
+            return Mono.error(new ReviewDataException(PAGE_SIZE_QUERY_PARAM + " : must be positive"));
+        }
+
+        ReviewSort sort;
+        try {
+            sort = requestedSort.map(value -> ReviewSort.valueOf(value.toUpperCase(Locale.ROOT)))
+                    .orElse(ReviewSort.OLDEST);
+        } catch (IllegalArgumentException ex) {
+            return Mono.error(new ReviewDataException(SORT_QUERY_PARAM + " : must be one of "
+                    + Arrays.toString(ReviewSort.values()).toLowerCase(Locale.ROOT)));
+        }
+
+        ReviewCursor cursor;
+        try {
+            cursor = after.map(value -> ReviewCursor.decode(value, sort)).orElse(null);
+        } catch (IllegalArgumentException ex) {
+            return Mono.error(new ReviewDataException(AFTER_QUERY_PARAM + " : is not a cursor for this sort"));
+        }
+
+        // keyset on the sort key, one extra review tells whether another page follows
+        Flux<Review> reviews = reviewReactiveRepository.findPage(movieInfoId.orElse(null), sort, cursor,
+                pageSize + 1);
+
+        return reviews.collectList()
+                .transform(signalTracing.mono("reviews.page"))
+                .flatMap(pageReviews -> {
+                    if (pageReviews.size() <= pageSize) {
+                        return ServerResponse.ok().contentType(mediaType).bodyValue(pageReviews);
+                    }
+                    List<Review> currentPage = pageReviews.subList(0, pageSize);
+                    return ServerResponse.ok()
+                            .contentType(mediaType)
+                            .header(NEXT_CURSOR_HEADER, ReviewCursor.of(currentPage.get(pageSize - 1)).encode(sort))
+                            .bodyValue(currentPage);
+                });
     }
 
     public Mono<ServerResponse> updateReview(ServerRequest request) {
@@ -89,21 +356,35 @@ public class ReviewHandler {
         return reviewReactiveRepository.findById(reviewId)
                 .switchIfEmpty(
                         Mono.error(new ReviewNotFoundException("Review not found for the given review Id " + reviewId)))
-                .flatMap(review -> request.bodyToMono(Review.class).log()
-                        .map(updatedReview -> {
+                .flatMap(review -> request.bodyToMono(Review.class)
+                        .flatMap(updatedReview -> {
+                            Double previousRating = review.getRating();
                             review.setComment(updatedReview.getComment());
                             review.setRating(updatedReview.getRating());
-                            return review;
+                            return summarized(
+                                    reviewSummaryStore.updateRating(review.getMovieInfoId(), previousRating,
+                                            review.getRating()),
+                                    reviewReactiveRepository.save(review),
+                                    () -> reviewSummaryStore.updateRating(review.getMovieInfoId(), review.getRating(),
+                                            previousRating));
                         }))
-                .log()
-                .flatMap(reviewReactiveRepository::save).log()
-                .flatMap(ServerResponse.status(HttpStatus.ACCEPTED)::bodyValue).log();
+                .transform(signalTracing.mono("reviews.update"))
+                .flatMap(ServerResponse.status(HttpStatus.ACCEPTED).contentType(mediaType(request))::bodyValue);
     }
 
     public Mono<ServerResponse> deleteReview(ServerRequest request) {
 
-        return reviewReactiveRepository.deleteById(request.pathVariable(REVIEW_ID_PATH_VARIABLE)).log()
-                .then(ServerResponse.noContent().build()).log();
+        // the review is read first, its rating has to come off the summary
+        return reviewReactiveRepository.findById(request.pathVariable(REVIEW_ID_PATH_VARIABLE))
+                .flatMap(review -> summarized(reviewSummaryStore.remove(review),
+                        reviewReactiveRepository.delete(review), () -> reviewSummaryStore.add(review)))
+                .transform(signalTracing.mono("reviews.delete"))
+                .then(ServerResponse.noContent().build());
+    }
+
+    // the summary counts a change before it is written, see ReviewSummaryStore, and takes it back if the write fails
+    private static <T> Mono<T> summarized(Mono<Void> change, Mono<T> write, Supplier<Mono<Void>> revert) {
+        return change.then(write.onErrorResume(ex -> revert.get().then(Mono.error(ex))));
     }
 
 }
@@ -0,0 +1,16 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.*;
+
+import reactor.core.publisher.Flux;
+
+public interface ReviewPageRepository {
+
+    /**
+     * Keyset page of reviews, optionally of a single movie.
+     *
+     * @param movieInfoId null for the reviews of every movie
+     * @param after null for the first page
+     */
+    Flux<Review> findPage(String movieInfoId, ReviewSort sort, ReviewCursor after, int limit);
+}
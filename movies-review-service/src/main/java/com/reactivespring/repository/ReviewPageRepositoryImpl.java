@@ -0,0 +1,68 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.*;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.*;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+
+@RequiredArgsConstructor
+public class ReviewPageRepositoryImpl implements ReviewPageRepository {
+
+    private static final String MOVIE_INFO_ID = "movieInfoId";
+    private static final String REVIEW_ID = "reviewId";
+    private static final String RATING = "rating";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Flux<Review> findPage(String movieInfoId, ReviewSort sort, ReviewCursor after, int limit) {
+
+        Query query = new Query().limit(limit);
+        if (movieInfoId != null) {
+            query.addCriteria(Criteria.where(MOVIE_INFO_ID).is(movieInfoId));
+        }
+
+        switch (sort) {
+            case NEWEST:
+                query.with(Sort.by(Sort.Direction.DESC, REVIEW_ID));
+                if (after != null) {
+                    query.addCriteria(Criteria.where(REVIEW_ID).lt(after.getReviewId()));
+                }
+                break;
+            case RATING:
+                query.with(Sort.by(Sort.Direction.DESC, RATING, REVIEW_ID));
+                if (after != null) {
+                    query.addCriteria(afterRating(after));
+                }
+                break;
+            case OLDEST:
+            default:
+                query.with(Sort.by(Sort.Direction.ASC, REVIEW_ID));
+                if (after != null) {
+                    query.addCriteria(Criteria.where(REVIEW_ID).gt(after.getReviewId()));
+                }
+        }
+
+        return mongoTemplate.find(query, Review.class);
+    }
+
+    private static Criteria afterRating(ReviewCursor after) {
+
+        // unrated reviews sort last in descending order
+        if (after.getRating() == null) {
+            return new Criteria().andOperator(
+                    Criteria.where(RATING).is(null),
+                    Criteria.where(REVIEW_ID).lt(after.getReviewId()));
+        }
+        return new Criteria().orOperator(
+                Criteria.where(RATING).lt(after.getRating()),
+                new Criteria().andOperator(
+                        Criteria.where(RATING).is(after.getRating()),
+                        Criteria.where(REVIEW_ID).lt(after.getReviewId())),
+                Criteria.where(RATING).is(null));
+    }
+}
@@ -1,12 +1,18 @@
 package com.reactivespring.repository;
 
+import java.util.Collection;
+
 import com.reactivespring.domain.Review;
 
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 
 import reactor.core.publisher.Flux;
 
-public interface ReviewReactiveRepository extends ReactiveMongoRepository<Review, String> {
+public interface ReviewReactiveRepository extends ReactiveMongoRepository<Review, String>, ReviewPageRepository {
 
     Flux<Review> findByMovieInfoId(String movieInfoId);
+
+    Flux<Review> findByMovieInfoIdIn(Collection<String> movieInfoIds);
+
+    Flux<Review> findByReviewIdGreaterThanOrderByReviewIdAsc(String reviewId);
 }
@@ -0,0 +1,182 @@
+package com.reactivespring.repository;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import com.mongodb.client.result.UpdateResult;
+import com.reactivespring.domain.*;
+
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.*;
+import org.springframework.data.mongodb.core.aggregation.*;
+import org.springframework.data.mongodb.core.query.*;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.*;
+
+/**
+ * Maintains {@link ReviewSummary} documents with atomic $inc updates, so reading a summary never touches the
+ * reviews themselves. A movie without a summary document, reviewed before summaries existed or seeded straight
+ * into the collection, gets one built from its stored reviews the first time it is read or written.
+ * <p>
+ * Changes are applied before the reviews they describe are written, and taken back when that write fails. A build
+ * never sees a review whose change is still on its way, so a change that loses the race to build goes on top of
+ * the summary that won it.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReviewSummaryStore {
+
+    private static final String HISTOGRAM = "histogram";
+    // upserts for different movies of one bulk batch in flight at once
+    private static final int CONCURRENCY = 8;
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public Flux<ReviewSummary> findByMovieInfoIds(Collection<String> movieInfoIds) {
+
+        return mongoTemplate.find(Query.query(Criteria.where("movieInfoId").in(movieInfoIds)), ReviewSummary.class)
+                .collectMap(ReviewSummary::getMovieInfoId)
+                .flatMapMany(summaries -> Flux.fromIterable(movieInfoIds)
+                        .flatMapSequential(movieInfoId -> summaries.containsKey(movieInfoId)
+                                ? Mono.just(summaries.get(movieInfoId))
+                                // movies nobody reviewed yet get no summary document
+                                : build(movieInfoId, new Delta())
+                                        // another request built it first
+                                        .onErrorResume(DuplicateKeyException.class,
+                                                ex -> mongoTemplate.findById(movieInfoId, ReviewSummary.class))
+                                        .defaultIfEmpty(ReviewSummary.empty(movieInfoId)),
+                                CONCURRENCY));
+    }
+
+    public Mono<Void> add(Review review) {
+        return apply(review.getMovieInfoId(), new Delta().add(review, 1));
+    }
+
+    public Mono<Void> addAll(Collection<Review> reviews) {
+        return applyAll(reviews, 1);
+    }
+
+    public Mono<Void> removeAll(Collection<Review> reviews) {
+        return applyAll(reviews, -1);
+    }
+
+    public Mono<Void> updateRating(String movieInfoId, Double previousRating, Double rating) {
+
+        if (Objects.equals(previousRating, rating)) {
+            return Mono.empty();
+        }
+        return apply(movieInfoId, new Delta()
+                .add(new Review(null, movieInfoId, null, previousRating), -1)
+                .add(new Review(null, movieInfoId, null, rating), 1));
+    }
+
+    public Mono<Void> remove(Review review) {
+        return apply(review.getMovieInfoId(), new Delta().add(review, -1));
+    }
+
+    private Mono<Void> applyAll(Collection<Review> reviews, int sign) {
+
+        Map<String, List<Review>> reviewsByMovieInfoId = reviews.stream()
+                .collect(Collectors.groupingBy(Review::getMovieInfoId));
+
+        return Flux.fromIterable(reviewsByMovieInfoId.entrySet())
+                .flatMap(movieReviews -> {
+                    Delta delta = new Delta();
+                    movieReviews.getValue().forEach(review -> delta.add(review, sign));
+                    return apply(movieReviews.getKey(), delta);
+                }, CONCURRENCY)
+                .then();
+    }
+
+    private Mono<Void> apply(String movieInfoId, Delta delta) {
+
+        // no upsert, an $inc on a missing summary would count only this change and none of the reviews before it
+        return increment(movieInfoId, delta)
+                .filter(result -> result.getMatchedCount() == 0)
+                .flatMap(result -> build(movieInfoId, delta).then()
+                        // another request built it first, from reviews read before this change is written
+                        .onErrorResume(DuplicateKeyException.class, ex -> increment(movieInfoId, delta).then()));
+    }
+
+    private Mono<UpdateResult> increment(String movieInfoId, Delta delta) {
+        return mongoTemplate.updateFirst(byMovieInfoId(movieInfoId), delta.toUpdate(), ReviewSummary.class);
+    }
+
+    /**
+     * Builds the summary of one movie from its stored reviews and a change not written yet, and inserts it. Empty
+     * when the movie has no reviews.
+     */
+    private Mono<ReviewSummary> build(String movieInfoId, Delta pending) {
+        return aggregate(movieInfoId)
+                .map(stored -> stored.add(pending).toSummary(movieInfoId))
+                .filter(summary -> summary.getCount() > 0)
+                .flatMap(summary -> mongoTemplate.insert(summary));
+    }
+
+    private Mono<Delta> aggregate(String movieInfoId) {
+
+        // one row per distinct rating, reviews without a rating land in the null row
+        TypedAggregation<Review> ratings = Aggregation.newAggregation(Review.class,
+                Aggregation.match(Criteria.where("movieInfoId").is(movieInfoId)),
+                Aggregation.group("rating").count().as("count"));
+
+        return mongoTemplate.aggregate(ratings, Document.class)
+                .reduceWith(Delta::new, (delta, rating) -> delta.add(
+                        rating.get("_id") == null ? null : ((Number) rating.get("_id")).doubleValue(),
+                        ((Number) rating.get("count")).longValue()));
+    }
+
+    private static Query byMovieInfoId(String movieInfoId) {
+        return Query.query(Criteria.where("movieInfoId").is(movieInfoId));
+    }
+
+    private static class Delta {
+
+        private long count;
+        private long ratedCount;
+        private double ratingSum;
+        private final Map<String, Long> histogram = new TreeMap<>();
+
+        Delta add(Review review, int sign) {
+            return add(review.getRating(), sign);
+        }
+
+        Delta add(Double rating, long reviews) {
+            count += reviews;
+            if (rating != null) {
+                ratedCount += reviews;
+                ratingSum += reviews * rating;
+                histogram.merge(bucket(rating), reviews, Long::sum);
+            }
+            return this;
+        }
+
+        Delta add(Delta other) {
+            count += other.count;
+            ratedCount += other.ratedCount;
+            ratingSum += other.ratingSum;
+            other.histogram.forEach((bucket, bucketCount) -> histogram.merge(bucket, bucketCount, Long::sum));
+            return this;
+        }
+
+        Update toUpdate() {
+            Update update = new Update()
+                    .inc("count", count)
+                    .inc("ratedCount", ratedCount)
+                    .inc("ratingSum", ratingSum);
+            histogram.forEach((bucket, bucketCount) -> update.inc(HISTOGRAM + "." + bucket, bucketCount));
+            return update;
+        }
+
+        ReviewSummary toSummary(String movieInfoId) {
+            return new ReviewSummary(movieInfoId, count, ratedCount, ratingSum, histogram);
+        }
+
+        private static String bucket(double rating) {
+            return String.valueOf((long) Math.floor(rating));
+        }
+    }
+}
@@ -2,9 +2,11 @@ package com.reactivespring.router;
 
 import java.util.function.Consumer;
 
+import com.reactivespring.common.codec.CodecConfig;
 import com.reactivespring.handler.ReviewHandler;
 
 import org.springframework.context.annotation.*;
+import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.server.*;
 
 @Configuration
@@ -14,8 +16,19 @@ public class ReviewRouter {
 
     public static final String REVIEW_PATH = API_VERSION + "/reviews";
     public static final String REVIEW_STREAM_PATH = "/stream";
+    public static final String REVIEW_STREAM_EVENTS_PATH = REVIEW_STREAM_PATH + "/events";
+    public static final String REVIEW_BULK_PATH = "/bulk";
+    public static final String REVIEW_SUMMARY_PATH = "/summary";
     public static final String REVIEW_PATH_PARAMETER = "reviewId";
     public static final String REVIEW_QUERY_PARAMETER_MOVIE_INFO_ID = "movieInfoId";
+    public static final String REVIEW_QUERY_PARAMETER_SEPARATOR = ",";
+    public static final String REVIEW_QUERY_PARAMETER_PAGE_SIZE = "pageSize";
+    public static final String REVIEW_QUERY_PARAMETER_AFTER = "after";
+    public static final String REVIEW_QUERY_PARAMETER_SORT = "sort";
+    public static final String REVIEW_NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String REVIEW_STREAM_QUERY_PARAMETER_AFTER_REVIEW_ID = "afterReviewId";
+    public static final String REVIEW_STREAM_QUERY_PARAMETER_SINCE = "since";
+    public static final String REVIEW_STREAM_QUERY_PARAMETER_RESUME_TOKEN = "resumeToken";
     public static final String REVIEW_PATH_REVIEW_PATH_PARAMETER_PATTERN = "/{" + REVIEW_PATH_PARAMETER + "}";
 
     @Bean
@@ -23,8 +36,13 @@ public class ReviewRouter {
 
         return RouterFunctions.route()
                 .nest(RequestPredicates.path(REVIEW_PATH), builder -> builder
-                        .GET(reviewHandler::getReviews)
+                        // specific paths first, the path-less GET and POST would otherwise match them as well
                         .GET(REVIEW_STREAM_PATH, reviewHandler::getReviewsStream)
+                        .GET(REVIEW_STREAM_EVENTS_PATH, reviewHandler::getReviewEventsStream)
+                        .GET(REVIEW_SUMMARY_PATH, reviewHandler::getReviewSummaries)
+                        .GET(reviewHandler::getReviews)
+                        .POST(REVIEW_BULK_PATH, RequestPredicates.contentType(MediaType.APPLICATION_NDJSON,
+                                CodecConfig.APPLICATION_STREAM_SMILE), reviewHandler::addReviews)
                         .POST(reviewHandler::addReview)
                         .PUT(REVIEW_PATH_REVIEW_PATH_PARAMETER_PATTERN, reviewHandler::updateReview)
                         .DELETE(REVIEW_PATH_REVIEW_PATH_PARAMETER_PATTERN, reviewHandler::deleteReview))
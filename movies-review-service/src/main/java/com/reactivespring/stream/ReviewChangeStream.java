@@ -0,0 +1,59 @@
+package com.reactivespring.stream;
+
+import java.util.Optional;
+
+import com.reactivespring.common.stream.ChangeStreamFeed;
+import com.reactivespring.domain.*;
+import com.reactivespring.domain.ReviewEvent.Operation;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.*;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Live review feed driven by a MongoDB change stream, so every replica sees
+ * inserts, updates and deletes regardless of which pod handled the write.
+ * Requires a replica set (or sharded cluster).
+ */
+@Component
+@ConditionalOnProperty(prefix = "reviews.stream.change-stream", name = "enabled", havingValue = "true")
+public class ReviewChangeStream extends ChangeStreamFeed<Review, ReviewEvent> {
+
+    public ReviewChangeStream(ReactiveMongoTemplate reactiveMongoTemplate) {
+        super(reactiveMongoTemplate, Review.class, "Review");
+    }
+
+    public Flux<Review> reviews() {
+        return events(Optional.empty())
+                .filter(event -> event.getOperation() != Operation.DELETE)
+                .map(ReviewEvent::getReview);
+    }
+
+    @Override
+    protected Optional<ReviewEvent> toEvent(ChangeStreamEvent<Review> event) {
+
+        if (event.getRaw() == null) {
+            return Optional.empty();
+        }
+
+        Operation operation;
+        switch (event.getOperationType()) {
+            case INSERT:
+                operation = Operation.INSERT;
+                break;
+            case UPDATE:
+            case REPLACE:
+                operation = Operation.UPDATE;
+                break;
+            case DELETE:
+                operation = Operation.DELETE;
+                break;
+            default:
+                return Optional.empty();
+        }
+
+        return Optional.of(new ReviewEvent(operation, documentId(event), event.getBody(), resumeToken(event)));
+    }
+}
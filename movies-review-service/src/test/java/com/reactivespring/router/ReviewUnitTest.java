@@ -1,36 +1,67 @@
 package com.reactivespring.router;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.*;
 
 import com.reactivespring.BaseUnitTest;
-import com.reactivespring.domain.Review;
+import com.reactivespring.common.bulk.*;
+import com.reactivespring.common.codec.CodecConfig;
+import com.reactivespring.common.stream.StreamBackpressure;
+import com.reactivespring.config.*;
+import com.reactivespring.domain.*;
 import com.reactivespring.exceptionhandler.GlobalExceptionHandler;
 import com.reactivespring.handler.ReviewHandler;
-import com.reactivespring.repository.ReviewReactiveRepository;
+import com.reactivespring.repository.*;
 
-import org.junit.jupiter.api.Test;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.*;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import reactor.core.publisher.*;
+import reactor.test.StepVerifier;
 
-@ContextConfiguration(classes = { ReviewRouter.class, ReviewHandler.class, GlobalExceptionHandler.class })
+@ContextConfiguration(classes = { ReviewRouter.class, ReviewHandler.class, GlobalExceptionHandler.class,
+        ReviewStreamConfig.class, ReviewStreamProperties.class, ReviewListProperties.class, MoviesCommonConfig.class })
 public class ReviewUnitTest extends BaseUnitTest {
 
     private static final String REVIEW_PATH = ReviewRouter.REVIEW_PATH;
     private static final String REVIEW_WITH_PATH_PARAM_REVIEWID = REVIEW_PATH
             + ReviewRouter.REVIEW_PATH_REVIEW_PATH_PARAMETER_PATTERN;
     private static final String REVIEW_QUERY_PARAM_MOVIE_INFO_ID = ReviewRouter.REVIEW_QUERY_PARAMETER_MOVIE_INFO_ID;
+    private static final String REVIEW_STREAM_PATH = REVIEW_PATH + ReviewRouter.REVIEW_STREAM_PATH;
 
     @MockBean
     private ReviewReactiveRepository reviewReactiveRepository;
 
+    @MockBean
+    private BulkInserter bulkInserter;
+
+    @MockBean
+    private ReviewSummaryStore reviewSummaryStore;
+
+    @Autowired
+    private Sinks.Many<Review> reviewsReplaySink;
+
+    @Autowired
+    private StreamBackpressure streamBackpressure;
+
+    @BeforeEach
+    void setUp() {
+        when(reviewSummaryStore.add(any(Review.class))).thenReturn(Mono.empty());
+        when(reviewSummaryStore.updateRating(any(), any(), any())).thenReturn(Mono.empty());
+        when(reviewSummaryStore.remove(any(Review.class))).thenReturn(Mono.empty());
+    }
+
     @Test
     public void testAddReview() {
 
@@ -83,6 +114,28 @@ public class ReviewUnitTest extends BaseUnitTest {
                 });
     }
 
+    @Test
+    public void testAddReviews() {
+
+        when(bulkInserter.insert(any(), eq(Review.class), any(), any())).thenReturn(Flux.just(
+                BulkItemResult.created(0, "1"),
+                BulkItemResult.invalid(1, "movieInfoId : must not be null")));
+
+        webTestClient.post()
+                .uri(REVIEW_PATH + ReviewRouter.REVIEW_BULK_PATH)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"movieInfoId\": \"1\", \"rating\": 8.0}\n{\"rating\": 7.0}\n")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(BulkItemResult.class)
+                .getResponseBody()
+                .as(StepVerifier::create)
+                .assertNext(result -> assertEquals(BulkItemResult.Status.CREATED, result.getStatus()))
+                .assertNext(result -> assertEquals(BulkItemResult.Status.INVALID, result.getStatus()))
+                .verifyComplete();
+    }
+
     @Test
     public void getAllReviews() {
 
@@ -103,6 +156,107 @@ public class ReviewUnitTest extends BaseUnitTest {
                 });
     }
 
+    @Test
+    public void getReviewsPage() {
+
+        Flux<Review> reviewList = Flux.just(new Review("1", "1", "Movie 1", 7.5), new Review("2", "1", "Movie 1", 8.0),
+                new Review("3", "1", "Movie 1", 6.0));
+        when(reviewReactiveRepository.findPage("1", ReviewSort.OLDEST, new ReviewCursor("0", null), 3))
+                .thenReturn(reviewList);
+
+        webTestClient
+                .get()
+                .uri(UriComponentsBuilder.fromUriString(REVIEW_PATH)
+                        .queryParam(REVIEW_QUERY_PARAM_MOVIE_INFO_ID, "1")
+                        .queryParam(ReviewRouter.REVIEW_QUERY_PARAMETER_AFTER, "0")
+                        .queryParam(ReviewRouter.REVIEW_QUERY_PARAMETER_PAGE_SIZE, 2)
+                        .buildAndExpand().toUri())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(ReviewRouter.REVIEW_NEXT_CURSOR_HEADER, "2")
+                .expectBodyList(Review.class)
+                .hasSize(2);
+    }
+
+    @Test
+    public void getReviewsPage_TopRated() {
+
+        Flux<Review> reviewList = Flux.just(new Review("4", "1", "Movie 1", 9.5), new Review("2", "1", "Movie 1", 8.0),
+                new Review("3", "1", "Movie 1", 8.0));
+        when(reviewReactiveRepository.findPage("1", ReviewSort.RATING, null, 3)).thenReturn(reviewList);
+
+        webTestClient
+                .get()
+                .uri(UriComponentsBuilder.fromUriString(REVIEW_PATH)
+                        .queryParam(REVIEW_QUERY_PARAM_MOVIE_INFO_ID, "1")
+                        .queryParam(ReviewRouter.REVIEW_QUERY_PARAMETER_SORT, "rating")
+                        .queryParam(ReviewRouter.REVIEW_QUERY_PARAMETER_PAGE_SIZE, 2)
+                        .buildAndExpand().toUri())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(ReviewRouter.REVIEW_NEXT_CURSOR_HEADER, "8.0_2")
+                .expectBodyList(Review.class)
+                .hasSize(2);
+    }
+
+    @Test
+    public void getReviewsPage_InvalidSort() {
+
+        webTestClient
+                .get()
+                .uri(UriComponentsBuilder.fromUriString(REVIEW_PATH)
+                        .queryParam(ReviewRouter.REVIEW_QUERY_PARAMETER_SORT, "loudest")
+                        .buildAndExpand().toUri())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void getReviewsPage_InvalidPageSize() {
+
+        webTestClient
+                .get()
+                .uri(UriComponentsBuilder.fromUriString(REVIEW_PATH)
+                        .queryParam(ReviewRouter.REVIEW_QUERY_PARAMETER_PAGE_SIZE, "many")
+                        .buildAndExpand().toUri())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void getReviewsPage_SeveralMovieInfoIds() {
+
+        webTestClient
+                .get()
+                .uri(UriComponentsBuilder.fromUriString(REVIEW_PATH)
+                        .queryParam(REVIEW_QUERY_PARAM_MOVIE_INFO_ID, "1,2")
+                        .queryParam(ReviewRouter.REVIEW_QUERY_PARAMETER_PAGE_SIZE, 2)
+                        .buildAndExpand().toUri())
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verifyNoInteractions(reviewReactiveRepository);
+    }
+
+    @Test
+    public void getAllReviews_QueriesOnce() {
+
+        AtomicInteger queries = new AtomicInteger();
+        Flux<Review> reviewList = Flux.just(new Review("1", "1", "Movie 1", 7.5), new Review("2", "2", "Movie 2", 8.0))
+                .doOnSubscribe(subscription -> queries.incrementAndGet());
+        when(reviewReactiveRepository.findAll()).thenReturn(reviewList);
+
+        webTestClient
+                .get()
+                .uri(REVIEW_PATH)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Review.class)
+                .hasSize(2);
+
+        assertEquals(1, queries.get());
+    }
+
     @Test
     public void getAllReviewsEmptyResponse() {
 
@@ -166,6 +320,73 @@ public class ReviewUnitTest extends BaseUnitTest {
                 });
     }
 
+    @Test
+    public void getReviewsByMovieInfoId_Smile() {
+        Flux<Review> reviewList = Flux.just(new Review("1", "1", "Movie 1", 7.5), new Review("2", "1", "Movie 2", 8.0));
+        when(reviewReactiveRepository.findByMovieInfoId("1")).thenReturn(reviewList);
+
+        webTestClient
+                .get()
+                .uri(
+                        UriComponentsBuilder.fromPath(REVIEW_PATH)
+                                .queryParam(REVIEW_QUERY_PARAM_MOVIE_INFO_ID, 1L)
+                                .build()
+                                .toUri())
+                .accept(CodecConfig.APPLICATION_SMILE, MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(CodecConfig.APPLICATION_SMILE)
+                .expectBodyList(Review.class)
+                .hasSize(2);
+    }
+
+    @Test
+    public void getAllReviews_Ndjson() {
+
+        int reviewCount = 1001;
+        when(reviewReactiveRepository.findAll()).thenReturn(Flux.range(0, reviewCount)
+                .map(i -> new Review(String.valueOf(i), "1", "Movie " + i, 7.5)));
+
+        // the whole collection stays cut at max-results when streamed
+        webTestClient
+                .get()
+                .uri(REVIEW_PATH)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Review.class)
+                .getResponseBody()
+                .as(StepVerifier::create)
+                .expectNextCount(1000)
+                .verifyComplete();
+    }
+
+    @Test
+    public void getReviewsByMovieInfoId_Ndjson() {
+
+        int reviewCount = 1001;
+        when(reviewReactiveRepository.findByMovieInfoId("1")).thenReturn(Flux.range(0, reviewCount)
+                .map(i -> new Review(String.valueOf(i), "1", "Movie " + i, 7.5)));
+
+        // streamed reviews of a movie are not cut at max-results
+        webTestClient
+                .get()
+                .uri(UriComponentsBuilder.fromPath(REVIEW_PATH)
+                        .queryParam(REVIEW_QUERY_PARAM_MOVIE_INFO_ID, "1")
+                        .build()
+                        .toUri())
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Review.class)
+                .getResponseBody()
+                .as(StepVerifier::create)
+                .expectNextCount(reviewCount)
+                .verifyComplete();
+    }
+
     @Test
     public void getReviewsByMovieInfoId_NoneReturned() {
 
@@ -182,15 +403,244 @@ public class ReviewUnitTest extends BaseUnitTest {
                 .expectStatus().isNotFound();
     }
 
+    @Test
+    public void getReviewsByMovieInfoIds() {
+        Flux<Review> reviewList = Flux.just(new Review("1", "1", "Movie 1", 7.5), new Review("2", "2", "Movie 2", 8.0));
+        when(reviewReactiveRepository.findByMovieInfoIdIn(List.of("1", "2"))).thenReturn(reviewList);
+
+        webTestClient
+                .get()
+                .uri(
+                        UriComponentsBuilder.fromPath(REVIEW_PATH)
+                                .queryParam(REVIEW_QUERY_PARAM_MOVIE_INFO_ID, "1,2")
+                                .build()
+                                .toUri())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Review.class)
+                .consumeWith(response -> {
+                    List<Review> reviews = response.getResponseBody();
+                    assert reviews != null;
+                    assert reviews.size() == 2;
+                });
+    }
+
+    @Test
+    public void getReviewsStream_ResumeAfterReviewId() {
+        String afterReviewId = "61c0f1e2a3b4c5d6e7f80910";
+        Flux<Review> missed = Flux.just(new Review("61c0f1e2a3b4c5d6e7f80911", "1", "Movie 1", 7.5),
+                new Review("61c0f1e2a3b4c5d6e7f80912", "1", "Movie 2", 8.0));
+        when(reviewReactiveRepository.findByReviewIdGreaterThanOrderByReviewIdAsc(afterReviewId)).thenReturn(missed);
+
+        Flux<Review> reviewStream = webTestClient
+                .get()
+                .uri(
+                        UriComponentsBuilder.fromPath(REVIEW_STREAM_PATH)
+                                .queryParam(ReviewRouter.REVIEW_STREAM_QUERY_PARAMETER_AFTER_REVIEW_ID, afterReviewId)
+                                .build()
+                                .toUri())
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Review.class)
+                .getResponseBody();
+
+        StepVerifier.create(reviewStream)
+                .assertNext(review -> assertEquals("61c0f1e2a3b4c5d6e7f80911", review.getReviewId()))
+                .assertNext(review -> assertEquals("61c0f1e2a3b4c5d6e7f80912", review.getReviewId()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    public void getReviewsStream_ResumeWhileReviewsArrive() {
+        String afterReviewId = "61c0f1e2a3b4c5d6e7f80920";
+        Review missed = new Review("61c0f1e2a3b4c5d6e7f80921", "resume", "Movie 1", 7.5);
+        Review savedDuringBackfill = new Review("61c0f1e2a3b4c5d6e7f80922", "resume", "Movie 2", 8.0);
+        Review savedAfterBackfill = new Review("61c0f1e2a3b4c5d6e7f80923", "resume", "Movie 3", 6.0);
+
+        // the backfill is still open once the response starts
+        Sinks.Many<Review> backfill = Sinks.many().unicast().onBackpressureBuffer();
+        backfill.tryEmitNext(missed);
+        when(reviewReactiveRepository.findByReviewIdGreaterThanOrderByReviewIdAsc(afterReviewId))
+                .thenReturn(backfill.asFlux());
+
+        Flux<Review> reviewStream = webTestClient
+                .get()
+                .uri(
+                        UriComponentsBuilder.fromPath(REVIEW_STREAM_PATH)
+                                .queryParam(ReviewRouter.REVIEW_STREAM_QUERY_PARAMETER_AFTER_REVIEW_ID, afterReviewId)
+                                .build()
+                                .toUri())
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Review.class)
+                .getResponseBody()
+                // the shared sink replays the reviews of the other tests
+                .filter(review -> "resume".equals(review.getMovieInfoId()));
+
+        // the review saved while mongo is read reaches both the live sink and the backfill, it is sent once
+        StepVerifier.create(reviewStream)
+                .assertNext(review -> assertEquals(missed.getReviewId(), review.getReviewId()))
+                .then(() -> {
+                    reviewsReplaySink.tryEmitNext(savedDuringBackfill);
+                    backfill.tryEmitNext(savedDuringBackfill);
+                    backfill.tryEmitComplete();
+                })
+                .assertNext(review -> assertEquals(savedDuringBackfill.getReviewId(), review.getReviewId()))
+                .then(() -> reviewsReplaySink.tryEmitNext(savedAfterBackfill))
+                .assertNext(review -> assertEquals(savedAfterBackfill.getReviewId(), review.getReviewId()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    public void getReviewsStream_ResumeOlderThanTheReplayHistory() {
+        String afterReviewId = "61c0f1e2a3b4c5d6e7f80930";
+        Review replayed = new Review("61c0f1e2a3b4c5d6e7f80931", "older", "Movie 1", 7.5);
+        Review savedAfterResume = new Review("61c0f1e2a3b4c5d6e7f80932", "older", "Movie 2", 8.0);
+
+        // already in the replay history, the backfill is what answers for it
+        reviewsReplaySink.tryEmitNext(replayed);
+        when(reviewReactiveRepository.findByReviewIdGreaterThanOrderByReviewIdAsc(afterReviewId))
+                .thenReturn(Flux.empty());
+
+        Flux<Review> reviewStream = webTestClient
+                .get()
+                .uri(
+                        UriComponentsBuilder.fromPath(REVIEW_STREAM_PATH)
+                                .queryParam(ReviewRouter.REVIEW_STREAM_QUERY_PARAMETER_AFTER_REVIEW_ID, afterReviewId)
+                                .build()
+                                .toUri())
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Review.class)
+                .getResponseBody()
+                .filter(review -> "older".equals(review.getMovieInfoId()));
+
+        // only reviews saved once the stream resumed are held, the replayed history is not
+        StepVerifier.create(reviewStream)
+                .then(() -> reviewsReplaySink.tryEmitNext(savedAfterResume))
+                .assertNext(review -> assertEquals(savedAfterResume.getReviewId(), review.getReviewId()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    public void getReviewsStream_SlowSubscriberResumesOverMoreThanTheBuffer() {
+        String afterReviewId = ObjectId.get().toHexString();
+        List<String> missedReviewIds = IntStream.range(0, streamBackpressure.getBufferSize() * 4)
+                .mapToObj(i -> ObjectId.get().toHexString())
+                .collect(Collectors.toList());
+        when(reviewReactiveRepository.findByReviewIdGreaterThanOrderByReviewIdAsc(afterReviewId))
+                .thenReturn(Flux.fromIterable(missedReviewIds)
+                        .map(reviewId -> new Review(reviewId, "slow", "Movie 1", 7.5)));
+
+        Flux<String> reviewStream = webTestClient
+                .get()
+                .uri(
+                        UriComponentsBuilder.fromPath(REVIEW_STREAM_PATH)
+                                .queryParam(ReviewRouter.REVIEW_STREAM_QUERY_PARAMETER_AFTER_REVIEW_ID, afterReviewId)
+                                .build()
+                                .toUri())
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Review.class)
+                .getResponseBody()
+                .filter(review -> "slow".equals(review.getMovieInfoId()))
+                .map(Review::getReviewId);
+
+        // the backfill follows the demand, none of it is dropped by the per subscriber buffer
+        StepVerifier.create(reviewStream, 1)
+                .expectNext(missedReviewIds.get(0))
+                .thenRequest(missedReviewIds.size() - 1)
+                .expectNextSequence(missedReviewIds.subList(1, missedReviewIds.size()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    public void getReviewsStream_Smile() {
+        String afterReviewId = "61c0f1e2a3b4c5d6e7f80910";
+        when(reviewReactiveRepository.findByReviewIdGreaterThanOrderByReviewIdAsc(afterReviewId))
+                .thenReturn(Flux.just(new Review("61c0f1e2a3b4c5d6e7f80911", "1", "Movie 1", 7.5)));
+
+        Flux<Review> reviewStream = webTestClient
+                .get()
+                .uri(
+                        UriComponentsBuilder.fromPath(REVIEW_STREAM_PATH)
+                                .queryParam(ReviewRouter.REVIEW_STREAM_QUERY_PARAMETER_AFTER_REVIEW_ID, afterReviewId)
+                                .build()
+                                .toUri())
+                .accept(CodecConfig.APPLICATION_STREAM_SMILE, MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(CodecConfig.APPLICATION_STREAM_SMILE)
+                .returnResult(Review.class)
+                .getResponseBody();
+
+        StepVerifier.create(reviewStream)
+                .assertNext(review -> assertEquals("61c0f1e2a3b4c5d6e7f80911", review.getReviewId()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    public void getReviewsStream_InvalidSince() {
+
+        webTestClient
+                .get()
+                .uri(
+                        UriComponentsBuilder.fromPath(REVIEW_STREAM_PATH)
+                                .queryParam(ReviewRouter.REVIEW_STREAM_QUERY_PARAMETER_SINCE, "yesterday")
+                                .build()
+                                .toUri())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void getReviewEventsStream_ChangeStreamDisabled() {
+
+        webTestClient
+                .get()
+                .uri(REVIEW_PATH + ReviewRouter.REVIEW_STREAM_EVENTS_PATH)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
     @Test
     public void deleteReview() {
 
-        when(reviewReactiveRepository.deleteById(any(String.class))).thenReturn(Mono.empty());
+        Review review = new Review("12345", "1", "Movie 1", 7.5);
+        when(reviewReactiveRepository.findById("12345")).thenReturn(Mono.just(review));
+        when(reviewReactiveRepository.delete(review)).thenReturn(Mono.empty());
 
         webTestClient
                 .delete()
                 .uri(REVIEW_WITH_PATH_PARAM_REVIEWID, "12345")
                 .exchange()
                 .expectStatus().isNoContent();
+
+        verify(reviewSummaryStore).remove(review);
+    }
+
+    @Test
+    public void getReviewSummaries() {
+
+        ReviewSummary summary = ReviewSummary.builder().movieInfoId("1").count(2).ratedCount(2).ratingSum(15.0)
+                .histogram(Map.of("7", 1L, "8", 1L)).build();
+        when(reviewSummaryStore.findByMovieInfoIds(List.of("1"))).thenReturn(Flux.just(summary));
+
+        webTestClient
+                .get()
+                .uri(UriComponentsBuilder.fromUriString(REVIEW_PATH + ReviewRouter.REVIEW_SUMMARY_PATH)
+                        .queryParam(REVIEW_QUERY_PARAM_MOVIE_INFO_ID, "1")
+                        .buildAndExpand().toUri())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].count").isEqualTo(2)
+                .jsonPath("$[0].averageRating").isEqualTo(7.5)
+                .jsonPath("$[0].histogram.7").isEqualTo(1);
     }
 }
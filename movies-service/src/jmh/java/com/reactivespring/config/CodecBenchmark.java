@@ -0,0 +1,103 @@
+package com.reactivespring.config;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import com.reactivespring.common.codec.CodecConfig;
+import com.reactivespring.domain.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+/**
+ * Encode then decode round trips of the documents movies-service reads from its downstreams and writes to its
+ * callers, with the reflection based ObjectMapper boot builds by default against the one {@link CodecConfig} adds
+ * Blackbird to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CodecBenchmark {
+
+    @Param({ "reflection", "blackbird" })
+    public String accessors;
+
+    // reviews in the aggregated movie
+    @Param({ "10", "100" })
+    public int reviews;
+
+    private ObjectMapper objectMapper;
+    private MovieInfo movieInfo;
+    private Review review;
+    private Movie movie;
+
+    private byte[] movieInfoJson;
+    private byte[] reviewJson;
+    private byte[] movieJson;
+
+    @Setup
+    public void setup() throws Exception {
+
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if ("blackbird".equals(accessors)) {
+            builder.modulesToInstall(new BlackbirdModule());
+        }
+        objectMapper = builder.build();
+
+        movieInfo = new MovieInfo("61c0c7d6b2f3a94e5b0f7a11", "Batman Begins", 2005,
+                List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15"));
+        review = new Review("61c0c7d6b2f3a94e5b0f7a12", movieInfo.getMovieInfoId(), "Awesome Movie", 9.0);
+
+        List<Review> reviewList = new ArrayList<>();
+        for (int index = 0; index < reviews; index++) {
+            reviewList.add(new Review("review-" + index, movieInfo.getMovieInfoId(), "Review number " + index,
+                    (double) (index % 10)));
+        }
+        movie = new Movie(movieInfo, reviewList);
+
+        movieInfoJson = objectMapper.writeValueAsBytes(movieInfo);
+        reviewJson = objectMapper.writeValueAsBytes(review);
+        movieJson = objectMapper.writeValueAsBytes(movie);
+    }
+
+    @Benchmark
+    public MovieInfo movieInfoRoundTrip() throws Exception {
+        return objectMapper.readValue(objectMapper.writeValueAsBytes(movieInfo), MovieInfo.class);
+    }
+
+    @Benchmark
+    public Review reviewRoundTrip() throws Exception {
+        return objectMapper.readValue(objectMapper.writeValueAsBytes(review), Review.class);
+    }
+
+    @Benchmark
+    public Movie movieRoundTrip() throws Exception {
+        return objectMapper.readValue(objectMapper.writeValueAsBytes(movie), Movie.class);
+    }
+
+    // the downstream half on its own, what every movies-info and reviews response costs
+    @Benchmark
+    public MovieInfo movieInfoDecode() throws Exception {
+        return objectMapper.readValue(movieInfoJson, MovieInfo.class);
+    }
+
+    @Benchmark
+    public Review reviewDecode() throws Exception {
+        return objectMapper.readValue(reviewJson, Review.class);
+    }
+
+    // the caller half on its own
+    @Benchmark
+    public byte[] movieEncode() throws Exception {
+        return objectMapper.writeValueAsBytes(movie);
+    }
+
+    @Benchmark
+    public Movie movieDecode() throws Exception {
+        return objectMapper.readValue(movieJson, Movie.class);
+    }
+}
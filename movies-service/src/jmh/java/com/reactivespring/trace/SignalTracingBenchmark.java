@@ -0,0 +1,60 @@
+package com.reactivespring.trace;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.reactivespring.common.trace.SignalTracing;
+
+import org.openjdk.jmh.annotations.*;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Throughput of a streaming chain with the old per signal {@code .log()} and with {@link SignalTracing} disabled,
+ * sampled and always on, in elements per millisecond.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SignalTracingBenchmark {
+
+    private static final int ELEMENTS = 10_000;
+
+    @Param({ "log", "disabled", "sampled", "always" })
+    public String instrumentation;
+
+    private Flux<Integer> flux;
+
+    @Setup
+    public void setup() {
+        flux = Flux.range(0, ELEMENTS).map(element -> element + 1).transform(instrumentation(instrumentation));
+    }
+
+    private static Function<Flux<Integer>, Flux<Integer>> instrumentation(String name) {
+
+        switch (name) {
+            case "log":
+                return Flux::log;
+            case "sampled":
+                return signalTracing(true, 0.01).flux("benchmark");
+            case "always":
+                return signalTracing(true, 1.0).flux("benchmark");
+            case "disabled":
+            default:
+                return signalTracing(false, 0.01).flux("benchmark");
+        }
+    }
+
+    private static SignalTracing signalTracing(boolean enabled, double sampleRate) {
+        SignalTracing signalTracing = new SignalTracing();
+        signalTracing.setEnabled(enabled);
+        signalTracing.setSampleRate(sampleRate);
+        return signalTracing;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS)
+    public Integer stream() {
+        return flux.blockLast();
+    }
+}
@@ -0,0 +1,50 @@
+package com.reactivespring.client;
+
+import com.reactivespring.config.HedgingProperties;
+import com.reactivespring.util.RetryBudget;
+
+import io.micrometer.core.instrument.*;
+import reactor.core.publisher.Mono;
+
+/**
+ * Fires a second identical request when the first has not answered within
+ * the hedging delay, the first signal wins and the other request is
+ * cancelled.
+ */
+public class Hedging {
+
+    private final HedgingProperties properties;
+    private final RetryBudget budget;
+    private final Counter issued;
+    private final Counter won;
+
+    public Hedging(String client, HedgingProperties properties) {
+        this.properties = properties;
+        this.budget = new RetryBudget(properties.getMaxHedgeRatio(), properties.getMaxBurst());
+        this.issued = Metrics.counter("rest.client.hedges", "client", client, "outcome", "issued");
+        this.won = Metrics.counter("rest.client.hedges", "client", client, "outcome", "won");
+    }
+
+    public <T> Mono<T> hedge(Mono<T> call) {
+
+        if (!properties.isEnabled()) {
+            return call;
+        }
+
+        return Mono.defer(() -> {
+            budget.deposit();
+
+            Mono<T> hedged = Mono.delay(properties.getDelay())
+                    .flatMap(tick -> {
+                        if (!budget.tryAcquire()) {
+                            // over the hedging cap, leave it to the first request
+                            return Mono.never();
+                        }
+                        issued.increment();
+                        return call.doOnNext(value -> won.increment());
+                    });
+
+            return Mono.firstWithSignal(call, hedged);
+        });
+    }
+}
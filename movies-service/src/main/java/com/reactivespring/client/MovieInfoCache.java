@@ -0,0 +1,119 @@
+package com.reactivespring.client;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.*;
+
+import com.github.benmanes.caffeine.cache.*;
+import com.reactivespring.config.MovieInfoCacheProperties;
+import com.reactivespring.domain.*;
+import com.reactivespring.exception.MoviesInfoClientException;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.*;
+import reactor.util.retry.Retry;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MovieInfoCache {
+
+    private final MovieInfoRestClient movieInfoRestClient;
+    private final MovieInfoCacheProperties properties;
+
+    private AsyncCache<String, MovieInfo> cache;
+    private Disposable streamInvalidation;
+    // set once the movie info events turn out to be unavailable, entries would then be served stale until they expire
+    private volatile boolean bypassed;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(Metrics.globalRegistry, cache.synchronous(), "movie-info");
+
+        if (properties.isEnabled() && properties.isInvalidateFromStream()) {
+            streamInvalidation = invalidations().subscribe(
+                    movieInfoId -> cache.synchronous().invalidate(movieInfoId),
+                    this::bypass);
+        }
+    }
+
+    /**
+     * Ids of the movie infos updated or deleted since they may have been cached. A reconnect resumes after the last
+     * event seen. Without a token to resume from, none seen yet or the last one rejected, events may have been missed
+     * and every cached movie info is dropped instead.
+     */
+    private Flux<String> invalidations() {
+
+        AtomicReference<String> resumeToken = new AtomicReference<>();
+
+        return Flux.defer(() -> {
+            String token = resumeToken.get();
+            if (token == null) {
+                cache.synchronous().invalidateAll();
+            }
+            return movieInfoRestClient.retrieveMovieInfoEvents(token);
+        })
+                .doOnNext(event -> resumeToken.set(event.getResumeToken()))
+                .doOnError(ex -> log.warn("Movie info events for cache invalidation failed: {}", ex.getMessage()))
+                .doOnError(MovieInfoCache::isInvalidResumeToken, ex -> resumeToken.set(null))
+                // a 404 is the movies-info change stream being disabled, no use retrying
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofMinutes(1))
+                        .filter(ex -> !isStatus(ex, HttpStatus.NOT_FOUND)))
+                .repeatWhen(completed -> completed.delayElements(Duration.ofSeconds(1)))
+                // inserts are of ids never cached, failed lookups are not cached
+                .filter(event -> event.getOperation() != MovieInfoEvent.Operation.INSERT)
+                .map(MovieInfoEvent::getMovieInfoId);
+    }
+
+    /**
+     * Stops caching when the invalidations cannot be had, an update or delete would otherwise be served stale until
+     * the entry expires. Caching without them takes invalidate-from-stream set to false.
+     */
+    private void bypass(Throwable ex) {
+        log.warn("Movie info events unavailable, movie infos are no longer cached. Enable the movies-info change "
+                + "stream, or set invalidate-from-stream to false to cache them for {} regardless: {}",
+                properties.getExpireAfterWrite(), ex.getMessage());
+        bypassed = true;
+        cache.synchronous().invalidateAll();
+    }
+
+    private static boolean isInvalidResumeToken(Throwable ex) {
+        return isStatus(ex, HttpStatus.BAD_REQUEST);
+    }
+
+    private static boolean isStatus(Throwable ex, HttpStatus status) {
+        return ex instanceof MoviesInfoClientException
+                && Integer.valueOf(status.value()).equals(((MoviesInfoClientException) ex).getStatusCode());
+    }
+
+    @PreDestroy
+    void destroy() {
+        if (streamInvalidation != null) {
+            streamInvalidation.dispose();
+        }
+    }
+
+    public Mono<MovieInfo> retrieveMovieInfo(String movieInfoId) {
+
+        if (!properties.isEnabled() || bypassed) {
+            return movieInfoRestClient.retriveMovieInfo(movieInfoId);
+        }
+
+        // concurrent misses for the same id share the in-flight future, failures are never cached
+        return Mono.defer(() -> Mono.fromFuture(
+                cache.get(movieInfoId, (key, executor) -> movieInfoRestClient.retriveMovieInfo(key).toFuture())));
+    }
+}
@@ -1,20 +1,30 @@
 package com.reactivespring.client;
 
+import javax.annotation.PostConstruct;
+import javax.validation.Valid;
 import javax.validation.constraints.NotEmpty;
 
-import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.common.trace.SignalTracing;
+import com.reactivespring.config.*;
+import com.reactivespring.domain.*;
 import com.reactivespring.exception.*;
-import com.reactivespring.util.RetryUtil;
+import com.reactivespring.util.*;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import io.github.resilience4j.bulkhead.*;
+import io.github.resilience4j.circuitbreaker.*;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
 import lombok.*;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.*;
+import reactor.netty.http.client.HttpClientRequest;
 
 @Component
 @RequiredArgsConstructor
@@ -27,9 +37,46 @@ public class MovieInfoRestClient {
     @NotEmpty
     private String serviceUrl;
 
+    @Valid
+    private RetryProperties retry = new RetryProperties();
+
+    private RetryBudget retryBudget;
+    private final RetryMetrics retryMetrics = new RetryMetrics("movies-info");
+
+    @Valid
+    private ResilienceProperties resilience = new ResilienceProperties();
+
+    private CircuitBreaker circuitBreaker;
+    private Bulkhead bulkhead;
+
+    @Valid
+    private HedgingProperties hedging = new HedgingProperties();
+
+    private Hedging hedger;
+
+    @Qualifier("moviesInfoWebClient")
     private final WebClient webclient;
 
+    private final SingleFlight<String, MovieInfo> singleFlight = new SingleFlight<>("movies-info");
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final BulkheadRegistry bulkheadRegistry;
+    private final SignalTracing signalTracing;
+
+    @PostConstruct
+    void init() {
+        retryBudget = new RetryBudget(retry.getBudgetRatio(), retry.getBudgetMaxTokens());
+        circuitBreaker = circuitBreakerRegistry.circuitBreaker("movies-info",
+                resilience.circuitBreakerConfig(MoviesInfoClientException.class));
+        bulkhead = bulkheadRegistry.bulkhead("movies-info", resilience.bulkheadConfig());
+        hedger = new Hedging("movies-info", hedging);
+    }
+
     public Mono<MovieInfo> retriveMovieInfo(String movieInfoId) {
+        return singleFlight.mono(movieInfoId, this::fetchMovieInfo);
+    }
+
+    private Mono<MovieInfo> fetchMovieInfo(String movieInfoId) {
 
         return webclient.get().uri(serviceUrl.concat("/{movieInfoId}"), movieInfoId)
                 .retrieve()
@@ -50,14 +97,53 @@ public class MovieInfoRestClient {
                                     "Movie Info Rest Client Exception. Message -> " + message)));
                 })
                 .bodyToMono(MovieInfo.class)
-                .retryWhen(RetryUtil.retrySpec())
-                .log();
+                .transform(hedger::hedge)
+                .retryWhen(RetryUtil.retrySpec(retry, retryBudget, retryMetrics))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                // the whole call as the caller sees it, retries, hedges and waits for the bulkhead included
+                .name("rest.client.call")
+                .tag("client", "movies-info")
+                .metrics()
+                .transform(signalTracing.mono("movies-info.get"));
+    }
+
+    /**
+     * Inserts, updates and deletes of movie infos as they happen. The movies-info service answers 404 while its
+     * change stream is disabled.
+     *
+     * @param resumeToken the token of the last event seen, null to start from now
+     */
+    public Flux<MovieInfoEvent> retrieveMovieInfoEvents(String resumeToken) {
+
+        WebClient.RequestHeadersSpec<?> request = resumeToken == null
+                ? webclient.get().uri(serviceUrl.concat("/stream/events"))
+                : webclient.get().uri(serviceUrl.concat("/stream/events?resumeToken={resumeToken}"), resumeToken);
+
+        return request
+                // the stream stays open between events, no read timeout
+                .httpRequest(httpRequest -> httpRequest.<HttpClientRequest>getNativeRequest().responseTimeout(null))
+                .retrieve()
+                .onStatus(HttpStatus::is4xxClientError, ex -> {
+                    return ex.bodyToMono(String.class)
+                            .defaultIfEmpty(ex.statusCode().getReasonPhrase())
+                            .flatMap(message -> Mono.error(new MoviesInfoClientException(message, ex.rawStatusCode())));
+                })
+                .onStatus(HttpStatus::is5xxServerError, ex -> {
+                    return ex.bodyToMono(String.class)
+                            .flatMap(message -> Mono.error(new MoviesInfoServerException(
+                                    "Movie Info Rest Client Exception. Message -> " + message)));
+                })
+                .bodyToFlux(MovieInfoEvent.class)
+                .transform(signalTracing.flux("movies-info.events"));
     }
 
     public Flux<MovieInfo> retrieveMovieInfoStream() {
 
         return webclient
                 .get().uri(serviceUrl.concat("/stream"))
+                // the stream stays open between movie infos, no read timeout
+                .httpRequest(httpRequest -> httpRequest.<HttpClientRequest>getNativeRequest().responseTimeout(null))
                 .retrieve()
                 .onStatus(HttpStatus::is4xxClientError, ex -> {
                     return ex.bodyToMono(String.class)
@@ -70,7 +156,7 @@ public class MovieInfoRestClient {
                                     "Movie Info Rest Client Exception. Message -> " + message)));
                 })
                 .bodyToFlux(MovieInfo.class)
-                .retryWhen(RetryUtil.retrySpec())
-                .log();
+                .retryWhen(RetryUtil.retrySpec(retry, retryBudget, retryMetrics))
+                .transform(signalTracing.flux("movies-info.stream"));
     }
 }
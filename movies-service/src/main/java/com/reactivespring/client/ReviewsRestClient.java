@@ -1,22 +1,33 @@
 package com.reactivespring.client;
 
 import java.net.URI;
+import java.util.*;
 
+import javax.annotation.PostConstruct;
+import javax.validation.Valid;
 import javax.validation.constraints.NotEmpty;
 
-import com.reactivespring.domain.Review;
+import com.reactivespring.common.trace.SignalTracing;
+import com.reactivespring.config.*;
+import com.reactivespring.domain.*;
 import com.reactivespring.exception.*;
-import com.reactivespring.util.RetryUtil;
+import com.reactivespring.util.*;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.*;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import io.github.resilience4j.bulkhead.*;
+import io.github.resilience4j.circuitbreaker.*;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
 import lombok.*;
 import reactor.core.publisher.*;
+import reactor.netty.http.client.HttpClientRequest;
 
 @Component
 @ConfigurationProperties(prefix = "rest-clients.movies-review")
@@ -25,20 +36,151 @@ import reactor.core.publisher.*;
 @Data
 public class ReviewsRestClient {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    @Qualifier("moviesReviewWebClient")
     private final WebClient webClient;
 
     @NotEmpty
     private String serviceUrl;
 
+    @Valid
+    private RetryProperties retry = new RetryProperties();
+
+    private RetryBudget retryBudget;
+    private final RetryMetrics retryMetrics = new RetryMetrics("movies-review");
+
+    @Valid
+    private ResilienceProperties resilience = new ResilienceProperties();
+
+    private CircuitBreaker circuitBreaker;
+    private Bulkhead bulkhead;
+
+    private final SingleFlight<URI, Review> singleFlight = new SingleFlight<>("movies-review");
+    private final SingleFlight<URI, ReviewPage> pageSingleFlight = new SingleFlight<>("movies-review");
+    private final SingleFlight<URI, ReviewSummary> summarySingleFlight = new SingleFlight<>("movies-review");
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final BulkheadRegistry bulkheadRegistry;
+    private final SignalTracing signalTracing;
+
+    @PostConstruct
+    void init() {
+        retryBudget = new RetryBudget(retry.getBudgetRatio(), retry.getBudgetMaxTokens());
+        circuitBreaker = circuitBreakerRegistry.circuitBreaker("movies-review",
+                resilience.circuitBreakerConfig(ReviewsClientException.class));
+        bulkhead = bulkheadRegistry.bulkhead("movies-review", resilience.bulkheadConfig());
+    }
+
     public Flux<Review> retrieveReviews(String movieInfoId) {
         URI uri = UriComponentsBuilder
                 .fromHttpUrl(serviceUrl)
                 .queryParam("movieInfoId", movieInfoId).buildAndExpand()
                 .toUri();
 
+        return retrieveReviews(uri);
+    }
+
+    public Flux<Review> retrieveReviews(Collection<String> movieInfoIds) {
+        URI uri = UriComponentsBuilder
+                .fromHttpUrl(serviceUrl)
+                .queryParam("movieInfoId", String.join(",", movieInfoIds)).buildAndExpand()
+                .toUri();
+
+        return retrieveReviews(uri);
+    }
+
+    private Flux<Review> retrieveReviews(URI uri) {
+        return singleFlight.flux(uri, reviewsUri -> fetch(reviewsUri, Review.class));
+    }
+
+    /**
+     * Reviews of a movie decoded one by one as they arrive. Not collapsed with concurrent calls, sharing would
+     * replay every review and keep them all in memory.
+     */
+    public Flux<Review> streamReviews(String movieInfoId) {
+        URI uri = UriComponentsBuilder
+                .fromHttpUrl(serviceUrl)
+                .queryParam("movieInfoId", movieInfoId).buildAndExpand()
+                .toUri();
+
+        // retries only follow a 5xx status, which comes before any review, so nothing is emitted twice
+        return retrieve(uri, MediaType.APPLICATION_NDJSON)
+                .bodyToFlux(Review.class)
+                .retryWhen(RetryUtil.retrySpec(retry, retryBudget, retryMetrics))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .transform(signalTracing.flux("movies-review.stream-movie"));
+    }
+
+    /**
+     * One page of a movie's reviews, limited and ordered by the reviews service.
+     *
+     * @param limit null for the service default page size
+     * @param sort oldest, newest or rating, null for oldest
+     * @param after the next cursor of the previous page, null for the first page
+     */
+    public Mono<ReviewPage> retrieveReviewPage(String movieInfoId, Integer limit, String sort, String after) {
+        UriComponentsBuilder builder = UriComponentsBuilder
+                .fromHttpUrl(serviceUrl)
+                .queryParam("movieInfoId", movieInfoId);
+        Optional.ofNullable(limit).ifPresent(pageSize -> builder.queryParam("pageSize", pageSize));
+        Optional.ofNullable(sort).ifPresent(order -> builder.queryParam("sort", order));
+        Optional.ofNullable(after).ifPresent(cursor -> builder.queryParam("after", cursor));
+        URI uri = builder.encode().build().toUri();
+
+        return pageSingleFlight.mono(uri, this::fetchPage);
+    }
+
+    public Mono<ReviewSummary> retrieveReviewSummary(String movieInfoId) {
+        URI uri = UriComponentsBuilder
+                .fromHttpUrl(serviceUrl.concat("/summary"))
+                .queryParam("movieInfoId", movieInfoId).buildAndExpand()
+                .toUri();
+
+        return summarySingleFlight.flux(uri, summaryUri -> fetch(summaryUri, ReviewSummary.class)).next();
+    }
+
+    private <T> Flux<T> fetch(URI uri, Class<T> type) {
+
+        return retrieve(uri)
+                .bodyToFlux(type)
+                .retryWhen(RetryUtil.retrySpec(retry, retryBudget, retryMetrics))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                // the whole call as the caller sees it, retries and waits for the bulkhead included
+                .name("rest.client.call")
+                .tag("client", "movies-review")
+                .metrics()
+                .transform(signalTracing.flux("movies-review.get"));
+    }
+
+    private Mono<ReviewPage> fetchPage(URI uri) {
+
+        return retrieve(uri)
+                .toEntityList(Review.class)
+                .map(response -> new ReviewPage(
+                        Optional.ofNullable(response.getBody()).orElse(List.of()),
+                        response.getHeaders().getFirst(NEXT_CURSOR_HEADER)))
+                .retryWhen(RetryUtil.retrySpec(retry, retryBudget, retryMetrics))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .name("rest.client.call")
+                .tag("client", "movies-review")
+                .metrics()
+                .transform(signalTracing.mono("movies-review.page"));
+    }
+
+    private WebClient.ResponseSpec retrieve(URI uri) {
+        return retrieve(uri, MediaType.APPLICATION_JSON);
+    }
+
+    private WebClient.ResponseSpec retrieve(URI uri, MediaType accept) {
+
         return webClient
                 .get()
                 .uri(uri)
+                .accept(accept)
                 .retrieve()
                 .onStatus(HttpStatus::is4xxClientError, ex -> {
                     if (HttpStatus.NOT_FOUND.equals(ex.statusCode())) {
@@ -54,9 +196,7 @@ public class ReviewsRestClient {
                             .flatMap(message -> Mono.error(new ReviewsServerException(
                                     "Reviews Rest Client Exception. Message -> "
                                             + message)));
-                })
-                .bodyToFlux(Review.class).log()
-                .retryWhen(RetryUtil.retrySpec());
+                });
     }
 
     public Flux<Review> retrieveReviewsStream() {
@@ -64,6 +204,8 @@ public class ReviewsRestClient {
         return webClient
                 .get()
                 .uri(serviceUrl.concat("/stream"))
+                // the stream stays open between reviews, no read timeout
+                .httpRequest(httpRequest -> httpRequest.<HttpClientRequest>getNativeRequest().responseTimeout(null))
                 .retrieve()
                 .onStatus(HttpStatus::is4xxClientError, ex -> {
                     if (HttpStatus.NOT_FOUND.equals(ex.statusCode())) {
@@ -80,7 +222,8 @@ public class ReviewsRestClient {
                                     "Reviews Rest Client Exception. Message -> "
                                             + message)));
                 })
-                .bodyToFlux(Review.class).log()
-                .retryWhen(RetryUtil.retrySpec());
+                .bodyToFlux(Review.class)
+                .retryWhen(RetryUtil.retrySpec(retry, retryBudget, retryMetrics))
+                .transform(signalTracing.flux("movies-review.stream"));
     }
 }
@@ -0,0 +1,53 @@
+package com.reactivespring.client;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.Function;
+
+import io.micrometer.core.instrument.*;
+import reactor.core.publisher.*;
+
+/**
+ * Shares one in-flight call per key between all concurrent callers. Nothing
+ * is kept once the call terminates, the next caller triggers a fresh call.
+ * The call is cancelled once every caller cancelled, a timed out flight does
+ * not keep running for nobody.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Flux<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter collapsed;
+
+    public SingleFlight(String client) {
+        this.collapsed = Metrics.counter("rest.client.calls.collapsed", "client", client);
+    }
+
+    public Flux<V> flux(K key, Function<K, Flux<V>> call) {
+
+        return Flux.defer(() -> {
+            AtomicBoolean leader = new AtomicBoolean();
+
+            Flux<V> shared = inFlight.computeIfAbsent(key, k -> {
+                leader.set(true);
+                AtomicReference<Flux<V>> self = new AtomicReference<>();
+                // removed ahead of the replay, a caller arriving once the others saw the result starts a fresh call
+                Flux<V> flux = call.apply(k)
+                        .doOnTerminate(() -> inFlight.remove(k, self.get()))
+                        .doOnCancel(() -> inFlight.remove(k, self.get()))
+                        .replay()
+                        .refCount(1);
+                self.set(flux);
+                return flux;
+            });
+
+            if (!leader.get()) {
+                collapsed.increment();
+            }
+            return shared;
+        });
+    }
+
+    public Mono<V> mono(K key, Function<K, Mono<V>> call) {
+        return flux(key, k -> call.apply(k).flux()).next();
+    }
+}
@@ -0,0 +1,53 @@
+package com.reactivespring.config;
+
+import java.time.Duration;
+
+import javax.validation.constraints.*;
+
+import org.springframework.util.unit.DataSize;
+
+import lombok.Data;
+
+@Data
+public class ConnectionProperties {
+
+    @Positive
+    private int maxConnections = 200;
+
+    // callers queued waiting for a pooled connection before acquisition fails fast
+    @Positive
+    private int pendingAcquireMaxCount = 1000;
+
+    @NotNull
+    private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+
+    @NotNull
+    private Duration maxIdleTime = Duration.ofSeconds(30);
+
+    @NotNull
+    private Duration maxLifeTime = Duration.ofMinutes(5);
+
+    @NotNull
+    private Duration evictInBackground = Duration.ofSeconds(30);
+
+    @NotNull
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    // max gap between reads of a response, not applied to the NDJSON streams
+    @NotNull
+    private Duration responseTimeout = Duration.ofSeconds(5);
+
+    @NotNull
+    private Duration writeTimeout = Duration.ofSeconds(5);
+
+    private boolean h2c = false;
+
+    private boolean compression = true;
+
+    // ask the downstream for smile ahead of json, a downstream not producing it keeps answering in json
+    private boolean smile = false;
+
+    // largest piece a response body is split into, fewer and larger buffers for the json decoder to work through
+    @NotNull
+    private DataSize maxChunkSize = DataSize.ofKilobytes(64);
+}
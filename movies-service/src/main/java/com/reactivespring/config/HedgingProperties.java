@@ -0,0 +1,25 @@
+package com.reactivespring.config;
+
+import java.time.Duration;
+
+import javax.validation.constraints.*;
+
+import lombok.Data;
+
+@Data
+public class HedgingProperties {
+
+    private boolean enabled = false;
+
+    // roughly the downstream p95, a request slower than this gets a hedge
+    @NotNull
+    private Duration delay = Duration.ofMillis(100);
+
+    // hedges earned per request, 0.1 caps hedged traffic at roughly 10%
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    private double maxHedgeRatio = 0.1;
+
+    @Positive
+    private int maxBurst = 10;
+}
@@ -0,0 +1,30 @@
+package com.reactivespring.config;
+
+import java.time.Duration;
+
+import javax.validation.constraints.*;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import lombok.Data;
+
+@Component
+@ConfigurationProperties(prefix = "rest-clients.movies-info.cache")
+@Validated
+@Data
+public class MovieInfoCacheProperties {
+
+    private boolean enabled = true;
+
+    @Positive
+    private long maximumSize = 10_000;
+
+    @NotNull
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+
+    // evict updated and deleted movie infos as the movies-info change events report them, needs the change stream
+    // enabled in movies-info, without it nothing is cached, false caches entries until they expire
+    private boolean invalidateFromStream = true;
+}
@@ -0,0 +1,45 @@
+package com.reactivespring.config;
+
+import java.util.List;
+
+import com.reactivespring.common.codec.*;
+import com.reactivespring.common.stream.StreamBackpressure;
+import com.reactivespring.common.trace.*;
+import com.reactivespring.domain.*;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.*;
+
+/**
+ * The pieces shared with the other services through movies-common, bound under the movies prefixes.
+ */
+@Configuration
+@Import(CodecConfig.class)
+public class MoviesCommonConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "movies.stream.backpressure")
+    public StreamBackpressure streamBackpressure() {
+        return new StreamBackpressure();
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "movies.tracing")
+    public SignalTracing signalTracing() {
+        return new SignalTracing();
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "movies.codec")
+    public CodecProperties codecProperties() {
+        CodecProperties properties = new CodecProperties();
+        properties.setWarmUpTypes(List.of(Movie.class, MovieChunk.class, MovieInfo.class, Review.class,
+                ReviewSummary.class));
+        return properties;
+    }
+
+    @Bean
+    public InFlightRequestsFilter inFlightRequestsFilter() {
+        return new InFlightRequestsFilter();
+    }
+}
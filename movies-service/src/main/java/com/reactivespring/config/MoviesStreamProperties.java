@@ -0,0 +1,66 @@
+package com.reactivespring.config;
+
+import java.time.Duration;
+
+import javax.validation.Valid;
+import javax.validation.constraints.*;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import lombok.Data;
+
+@Component
+@ConfigurationProperties(prefix = "movies.stream")
+@Validated
+@Data
+public class MoviesStreamProperties {
+
+    // number of movie infos grouped into one batched review lookup
+    @Positive
+    private int reviewBatchSize = 50;
+
+    // max time a partial batch waits before its reviews are fetched
+    @NotNull
+    private Duration reviewBatchMaxWait = Duration.ofMillis(100);
+
+    @Valid
+    private FanOut fanOut = new FanOut();
+
+    @Data
+    public static class FanOut {
+
+        // review batch lookups in flight at once, the upper bound when adaptive
+        @Positive
+        private int concurrency = 8;
+
+        // movies requested ahead from each batch lookup
+        @Positive
+        private int prefetch = 32;
+
+        // emit movies in the order the movie infos arrived, at the cost of head-of-line blocking
+        private boolean ordered = true;
+
+        @Valid
+        private Adaptive adaptive = new Adaptive();
+    }
+
+    @Data
+    public static class Adaptive {
+
+        private boolean enabled = false;
+
+        @Positive
+        private int minConcurrency = 1;
+
+        // a batch lookup slower than this counts as congestion
+        @NotNull
+        private Duration latencyTarget = Duration.ofMillis(250);
+
+        // share of the concurrency kept after congestion
+        @DecimalMin("0.1")
+        @DecimalMax("0.9")
+        private double backoffRatio = 0.5;
+    }
+}
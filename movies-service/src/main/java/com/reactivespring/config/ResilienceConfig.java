@@ -0,0 +1,44 @@
+package com.reactivespring.config;
+
+import org.springframework.context.annotation.*;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.*;
+import io.micrometer.core.instrument.*;
+import lombok.extern.slf4j.Slf4j;
+
+@Configuration
+@Slf4j
+public class ResilienceConfig {
+
+    @Bean
+    public CircuitBreakerRegistry circuitBreakerRegistry() {
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.ofDefaults();
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(Metrics.globalRegistry);
+
+        registry.getEventPublisher().onEntryAdded(added -> added.getAddedEntry().getEventPublisher()
+                .onStateTransition(event -> {
+                    log.warn("Circuit breaker {} {}", event.getCircuitBreakerName(), event.getStateTransition());
+                    Metrics.counter("rest.client.circuit.breaker.transitions",
+                            "client", event.getCircuitBreakerName(),
+                            "from", event.getStateTransition().getFromState().name(),
+                            "to", event.getStateTransition().getToState().name())
+                            .increment();
+                })
+                .onCallNotPermitted(event -> Metrics.counter("rest.client.calls.rejected",
+                        "client", event.getCircuitBreakerName(), "by", "circuit-breaker").increment()));
+        return registry;
+    }
+
+    @Bean
+    public BulkheadRegistry bulkheadRegistry() {
+        BulkheadRegistry registry = BulkheadRegistry.ofDefaults();
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(Metrics.globalRegistry);
+
+        registry.getEventPublisher().onEntryAdded(added -> added.getAddedEntry().getEventPublisher()
+                .onCallRejected(event -> Metrics.counter("rest.client.calls.rejected",
+                        "client", event.getBulkheadName(), "by", "bulkhead").increment()));
+        return registry;
+    }
+}
@@ -0,0 +1,64 @@
+package com.reactivespring.config;
+
+import java.time.Duration;
+
+import javax.validation.constraints.*;
+
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import lombok.Data;
+
+@Data
+public class ResilienceProperties {
+
+    @Positive
+    private float failureRateThreshold = 50;
+
+    @Positive
+    private float slowCallRateThreshold = 80;
+
+    @NotNull
+    private Duration slowCallDurationThreshold = Duration.ofSeconds(2);
+
+    // count based sliding window of the most recent calls
+    @Positive
+    private int slidingWindowSize = 20;
+
+    @Positive
+    private int minimumNumberOfCalls = 10;
+
+    @NotNull
+    private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+
+    @Positive
+    private int permittedNumberOfCallsInHalfOpenState = 3;
+
+    // bulkhead, concurrent calls allowed to the downstream service
+    @Positive
+    private int maxConcurrentCalls = 100;
+
+    @NotNull
+    private Duration maxWaitDuration = Duration.ZERO;
+
+    public CircuitBreakerConfig circuitBreakerConfig(Class<? extends Throwable> clientException) {
+        return CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slowCallDurationThreshold(slowCallDurationThreshold)
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumNumberOfCalls)
+                .waitDurationInOpenState(waitDurationInOpenState)
+                .permittedNumberOfCallsInHalfOpenState(permittedNumberOfCallsInHalfOpenState)
+                // a 4xx says nothing about the health of the downstream service
+                .ignoreExceptions(clientException)
+                .build();
+    }
+
+    public BulkheadConfig bulkheadConfig() {
+        return BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(maxWaitDuration)
+                .build();
+    }
+}
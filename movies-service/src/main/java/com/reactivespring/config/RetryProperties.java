@@ -0,0 +1,36 @@
+package com.reactivespring.config;
+
+import java.time.Duration;
+
+import javax.validation.constraints.*;
+
+import lombok.Data;
+
+@Data
+public class RetryProperties {
+
+    @PositiveOrZero
+    private int maxAttempts = 3;
+
+    @NotNull
+    private Duration minBackoff = Duration.ofSeconds(1);
+
+    @NotNull
+    private Duration maxBackoff = Duration.ofSeconds(5);
+
+    // +/- fraction applied to each backoff so clients do not retry in lockstep
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    private double jitter = 0.5;
+
+    // no retry is started once it would end past this, measured from the first attempt
+    @NotNull
+    private Duration maxTotalTime = Duration.ofSeconds(15);
+
+    // retry tokens earned per call, 0.2 caps retries at roughly 20% of normal traffic
+    @DecimalMin("0.0")
+    private double budgetRatio = 0.2;
+
+    @Positive
+    private int budgetMaxTokens = 100;
+}
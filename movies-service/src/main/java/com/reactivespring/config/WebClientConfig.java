@@ -1,14 +1,121 @@
 package com.reactivespring.config;
 
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import com.reactivespring.common.codec.CodecConfig;
+
+import org.springframework.boot.actuate.metrics.web.reactive.client.*;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.*;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.reactive.function.client.*;
+
+import io.micrometer.core.instrument.Tags;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.WriteTimeoutHandler;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 @Configuration
 public class WebClientConfig {
 
+    private static final String DOWNSTREAM_ATTRIBUTE = WebClientConfig.class.getName() + ".downstream";
+
+    @Bean
+    @ConfigurationProperties(prefix = "rest-clients.movies-info.connection")
+    @Validated
+    public ConnectionProperties moviesInfoConnectionProperties() {
+        return new ConnectionProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "rest-clients.movies-review.connection")
+    @Validated
+    public ConnectionProperties moviesReviewConnectionProperties() {
+        return new ConnectionProperties();
+    }
+
+    @Bean
+    public WebClient moviesInfoWebClient(WebClient.Builder builder) {
+        return webclient(builder, "movies-info", moviesInfoConnectionProperties());
+    }
+
+    @Bean
+    public WebClient moviesReviewWebClient(WebClient.Builder builder) {
+        return webclient(builder, "movies-review", moviesReviewConnectionProperties());
+    }
+
+    // http.client.requests per downstream, the client name is only the host and both may share one
     @Bean
-    public WebClient webclient(WebClient.Builder builder) {
-        return builder.build();
+    public WebClientExchangeTagsProvider webClientExchangeTagsProvider() {
+        WebClientExchangeTagsProvider defaults = new DefaultWebClientExchangeTagsProvider();
+        return (request, response, throwable) -> Tags.of(defaults.tags(request, response, throwable))
+                .and("downstream", request.attribute(DOWNSTREAM_ATTRIBUTE).map(String::valueOf).orElse("none"));
+    }
+
+    // each downstream gets its own pool so one slow service cannot starve the other
+    private WebClient webclient(WebClient.Builder builder, String name, ConnectionProperties properties) {
+
+        ConnectionProvider connectionProvider = ConnectionProvider.builder(name)
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireMaxCount(properties.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(properties.getPendingAcquireTimeout())
+                .maxIdleTime(properties.getMaxIdleTime())
+                .maxLifeTime(properties.getMaxLifeTime())
+                .evictInBackground(properties.getEvictInBackground())
+                .metrics(true)
+                .build();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                .responseTimeout(properties.getResponseTimeout())
+                .doOnConnected(connection -> connection.addHandlerLast(
+                        new WriteTimeoutHandler(properties.getWriteTimeout().toMillis(), TimeUnit.MILLISECONDS)))
+                .compress(properties.isCompression())
+                .httpResponseDecoder(decoder -> decoder.maxChunkSize((int) properties.getMaxChunkSize().toBytes()));
+
+        if (properties.isH2c()) {
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+
+        WebClient.Builder webClientBuilder = builder.clone()
+                .defaultRequest(request -> request.attribute(DOWNSTREAM_ATTRIBUTE, name))
+                .clientConnector(new ReactorClientHttpConnector(httpClient));
+
+        if (properties.isSmile()) {
+            webClientBuilder.filter((request, next) -> next.exchange(ClientRequest.from(request)
+                    .headers(headers -> headers.setAccept(preferSmile(headers.getAccept())))
+                    .build()));
+        }
+
+        return webClientBuilder.build();
+    }
+
+    /**
+     * The accept header of a request with the smile form of each json type it asks for ahead of the json type,
+     * which stays acceptable at a lower quality. No accept header asks for json and ndjson, the stream endpoints
+     * pick the latter. The responses are decoded by their content type, so either answer is read.
+     */
+    static List<MediaType> preferSmile(List<MediaType> accept) {
+
+        List<MediaType> requested = accept.isEmpty() ? List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_NDJSON)
+                : accept;
+
+        // error bodies are plain strings, first so a downstream does not wrap them in smile
+        List<MediaType> preferred = new ArrayList<>(List.of(MediaType.TEXT_PLAIN));
+        for (MediaType mediaType : requested) {
+            if (MediaType.APPLICATION_JSON.equalsTypeAndSubtype(mediaType)) {
+                preferred.add(CodecConfig.APPLICATION_SMILE);
+            } else if (MediaType.APPLICATION_NDJSON.equalsTypeAndSubtype(mediaType)) {
+                preferred.add(CodecConfig.APPLICATION_STREAM_SMILE);
+            }
+        }
+        requested.forEach(mediaType -> preferred.add(new MediaType(mediaType, Map.of("q", "0.9"))));
+        return preferred;
     }
 
 }
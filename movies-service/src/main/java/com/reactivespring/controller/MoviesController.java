@@ -1,21 +1,27 @@
 package com.reactivespring.controller;
 
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
 import javax.print.attribute.standard.Media;
 
 import com.reactivespring.client.*;
+import com.reactivespring.common.stream.StreamBackpressure;
+import com.reactivespring.common.trace.SignalTracing;
+import com.reactivespring.config.MoviesStreamProperties;
 import com.reactivespring.domain.*;
+import com.reactivespring.util.ConcurrencyLimiter;
 
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import lombok.RequiredArgsConstructor;
 import reactor.core.publisher.*;
-import reactor.util.function.Tuple2;
 
 @RestController
 @RequestMapping(MoviesController.MOVIES_PATH)
@@ -26,27 +32,108 @@ public class MoviesController {
     public static final String MOVIES_PATH = API_VERSION + "/movies";
 
     private final MovieInfoRestClient movieInfoRestClient;
+    private final MovieInfoCache movieInfoCache;
     private final ReviewsRestClient reviewsRestClient;
+    private final MoviesStreamProperties moviesStreamProperties;
+    private final StreamBackpressure streamBackpressure;
+    private final SignalTracing signalTracing;
+
+    private ConcurrencyLimiter fanOutLimiter;
+
+    @PostConstruct
+    void init() {
+        MoviesStreamProperties.FanOut fanOut = moviesStreamProperties.getFanOut();
+        MoviesStreamProperties.Adaptive adaptive = fanOut.getAdaptive();
+        fanOutLimiter = adaptive.isEnabled()
+                ? ConcurrencyLimiter.adaptive("movies-stream", adaptive.getMinConcurrency(), fanOut.getConcurrency(),
+                        adaptive.getLatencyTarget(), adaptive.getBackoffRatio())
+                : ConcurrencyLimiter.fixed("movies-stream", fanOut.getConcurrency());
+    }
 
     @GetMapping(value = "/{movieInfoId}")
-    public Mono<Movie> retrieveMovieById(@PathVariable String movieInfoId) {
+    public Mono<Movie> retrieveMovieById(@PathVariable String movieInfoId,
+            @RequestParam(name = "reviewsLimit", required = false) Integer reviewsLimit,
+            @RequestParam(name = "reviewsSort", required = false) String reviewsSort,
+            @RequestParam(name = "reviewsCursor", required = false) String reviewsCursor) {
+
+        if (reviewsLimit != null || reviewsSort != null || reviewsCursor != null) {
+            // a bounded, indexed page of reviews instead of all of them
+            return movieInfoCache.retrieveMovieInfo(movieInfoId)
+                    .flatMap(movieInfo -> reviewsRestClient
+                            .retrieveReviewPage(movieInfoId, reviewsLimit, reviewsSort, reviewsCursor)
+                            .onErrorResume(CallNotPermittedException.class, ex -> Mono.just(ReviewPage.empty()))
+                            .map(reviewPage -> Movie.page(movieInfo, reviewPage)))
+                    .transform(signalTracing.mono("movies.get-page"));
+        }
 
-        return movieInfoRestClient.retriveMovieInfo(movieInfoId)
+        return movieInfoCache.retrieveMovieInfo(movieInfoId)
                 .flatMap(movieInfo -> reviewsRestClient.retrieveReviews(movieInfoId)
+                        // review service is known to be down, serve the movie without reviews
+                        .onErrorResume(CallNotPermittedException.class, ex -> Flux.empty())
                         .collectList()
                         .map(reviews -> new Movie(movieInfo, reviews)))
-                .switchIfEmpty(Mono.empty());
+                .switchIfEmpty(Mono.empty())
+                .transform(signalTracing.mono("movies.get"));
+
+    }
+
+    @GetMapping(value = "/{movieInfoId}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<MovieChunk> streamMovieById(@PathVariable String movieInfoId) {
+
+        // the movie info goes out first and each review follows as it is read, nothing is collected
+        return movieInfoCache.retrieveMovieInfo(movieInfoId)
+                .flatMapMany(movieInfo -> Flux.concat(
+                        Mono.just(MovieChunk.of(movieInfo)),
+                        reviewsRestClient.streamReviews(movieInfoId)
+                                .onErrorResume(CallNotPermittedException.class, ex -> Flux.empty())
+                                .map(MovieChunk::of)))
+                .transform(signalTracing.flux("movies.stream-movie"));
+    }
+
+    @GetMapping(value = "/{movieInfoId}/summary")
+    public Mono<Movie> retrieveMovieSummaryById(@PathVariable String movieInfoId) {
 
+        // one precomputed summary document instead of every review of the movie
+        return movieInfoCache.retrieveMovieInfo(movieInfoId)
+                .flatMap(movieInfo -> reviewsRestClient.retrieveReviewSummary(movieInfoId)
+                        .onErrorResume(CallNotPermittedException.class, ex -> Mono.empty())
+                        .map(reviewSummary -> Movie.summary(movieInfo, reviewSummary))
+                        .defaultIfEmpty(Movie.summary(movieInfo, null)))
+                .transform(signalTracing.mono("movies.summary"));
     }
 
     @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
     public Flux<Movie> retrieveMovieInfoStream() {
 
-        return movieInfoRestClient.retrieveMovieInfoStream()
-                .flatMap(
-                        movieInfo -> reviewsRestClient.retrieveReviews(movieInfo.getMovieInfoId())
-                                .collectList()
-                                .map(reviews -> new Movie(movieInfo, reviews)));
+        MoviesStreamProperties.FanOut fanOut = moviesStreamProperties.getFanOut();
+        Function<List<MovieInfo>, Flux<Movie>> lookup = movieInfos -> fanOutLimiter.run(() -> toMovies(movieInfos));
+
+        Flux<List<MovieInfo>> batches = movieInfoRestClient.retrieveMovieInfoStream()
+                .bufferTimeout(moviesStreamProperties.getReviewBatchSize(),
+                        moviesStreamProperties.getReviewBatchMaxWait())
+                // a timed flush does not wait for demand, its batch queues here while every lookup slot is busy
+                .onBackpressureBuffer();
+
+        return (fanOut.isOrdered()
+                ? batches.flatMapSequential(lookup, fanOut.getConcurrency(), fanOut.getPrefetch())
+                : batches.flatMap(lookup, fanOut.getConcurrency(), fanOut.getPrefetch()))
+                .transform(streamBackpressure.perSubscriber("movies"))
+                .transform(signalTracing.flux("movies.stream"));
+    }
+
+    private Flux<Movie> toMovies(List<MovieInfo> movieInfos) {
+
+        List<String> movieInfoIds = movieInfos.stream()
+                .map(MovieInfo::getMovieInfoId)
+                .collect(Collectors.toList());
+
+        return reviewsRestClient.retrieveReviews(movieInfoIds)
+                .onErrorResume(CallNotPermittedException.class, ex -> Flux.empty())
+                .collectMultimap(Review::getMovieInfoId)
+                .flatMapIterable(reviewsByMovieInfoId -> movieInfos.stream()
+                        .map(movieInfo -> new Movie(movieInfo, new ArrayList<>(
+                                reviewsByMovieInfoId.getOrDefault(movieInfo.getMovieInfoId(), List.of()))))
+                        .collect(Collectors.toList()));
     }
 
 }
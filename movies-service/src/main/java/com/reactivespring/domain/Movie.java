@@ -1,6 +1,8 @@
 package com.reactivespring.domain;
 
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -10,8 +12,25 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+// a summary movie carries the review summary instead of the review list
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class Movie {
 
     private MovieInfo movieInfo;
     private List<Review> reviewList;
+    private ReviewSummary reviewSummary;
+    // set when reviewList is one page of the movie's reviews and more follow
+    private String reviewsNextCursor;
+
+    public Movie(MovieInfo movieInfo, List<Review> reviewList) {
+        this(movieInfo, reviewList, null, null);
+    }
+
+    public static Movie summary(MovieInfo movieInfo, ReviewSummary reviewSummary) {
+        return new Movie(movieInfo, null, reviewSummary, null);
+    }
+
+    public static Movie page(MovieInfo movieInfo, ReviewPage reviewPage) {
+        return new Movie(movieInfo, reviewPage.getReviews(), null, reviewPage.getNextCursor());
+    }
 }
@@ -0,0 +1,28 @@
+package com.reactivespring.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of a streamed movie: the movie info comes first, then one chunk per review.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MovieChunk {
+
+    private MovieInfo movieInfo;
+    private Review review;
+
+    public static MovieChunk of(MovieInfo movieInfo) {
+        return new MovieChunk(movieInfo, null);
+    }
+
+    public static MovieChunk of(Review review) {
+        return new MovieChunk(null, review);
+    }
+}
@@ -0,0 +1,24 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One insert, update or delete of a movie info, as published by the movies-info change stream.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieInfoEvent {
+
+    public enum Operation {
+        INSERT, UPDATE, DELETE
+    }
+
+    private Operation operation;
+    private String movieInfoId;
+    // null for deletes
+    private MovieInfo movieInfo;
+    private String resumeToken;
+}
@@ -0,0 +1,21 @@
+package com.reactivespring.domain;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewPage {
+
+    private List<Review> reviews;
+    // null on the last page
+    private String nextCursor;
+
+    public static ReviewPage empty() {
+        return new ReviewPage(List.of(), null);
+    }
+}
@@ -0,0 +1,20 @@
+package com.reactivespring.domain;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewSummary {
+
+    private String movieInfoId;
+    private long count;
+    // null while no review carries a rating
+    private Double averageRating;
+    // review count per whole rating point
+    private Map<String, Long> histogram;
+}
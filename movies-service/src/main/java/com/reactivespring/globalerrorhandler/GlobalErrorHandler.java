@@ -5,6 +5,8 @@ import com.reactivespring.exception.MoviesInfoClientException;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
 
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import lombok.extern.slf4j.Slf4j;
 
 @ControllerAdvice
@@ -17,6 +19,12 @@ public class GlobalErrorHandler {
         return ResponseEntity.status(HttpStatus.valueOf(ex.getStatusCode())).body(ex.getMessage());
     }
 
+    @ExceptionHandler({ CallNotPermittedException.class, BulkheadFullException.class })
+    public ResponseEntity<String> handleRejectedCall(RuntimeException ex) {
+        log.error("Downstream call rejected: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(ex.getMessage());
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<String> handleRuntimeException(RuntimeException ex) {
         log.error("Exception cuaght in handleRuntimeException", ex);
@@ -0,0 +1,172 @@
+package com.reactivespring.util;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.*;
+
+/**
+ * Caps the calls of a fan-out that run at once. The adaptive variant follows AIMD: every limit calls completing
+ * under the latency target raise the limit by one, a slow or failed call cuts it by the backoff ratio.
+ */
+public class ConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final double backoffRatio;
+
+    private final Deque<Permit> waiting = new ArrayDeque<>();
+    private int limit;
+    private int inFlight;
+    private int fastCalls;
+
+    private final Timer latency;
+
+    public static ConcurrencyLimiter fixed(String name, int limit) {
+        return new ConcurrencyLimiter(name, limit, limit, Duration.ofNanos(Long.MAX_VALUE), 1.0);
+    }
+
+    public static ConcurrencyLimiter adaptive(String name, int minLimit, int maxLimit, Duration latencyTarget,
+            double backoffRatio) {
+        return new ConcurrencyLimiter(name, minLimit, maxLimit, latencyTarget, backoffRatio);
+    }
+
+    private ConcurrencyLimiter(String name, int minLimit, int maxLimit, Duration latencyTarget, double backoffRatio) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTarget.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limit = maxLimit;
+
+        Gauge.builder("fan.out.in.flight", this, ConcurrencyLimiter::inFlight).tag("fan.out", name)
+                .register(Metrics.globalRegistry);
+        Gauge.builder("fan.out.limit", this, ConcurrencyLimiter::limit).tag("fan.out", name)
+                .register(Metrics.globalRegistry);
+        latency = Metrics.timer("fan.out.latency", "fan.out", name);
+    }
+
+    /**
+     * Subscribes to the call once a slot is free. The slot is a resource of the call, given back when the call
+     * completes, fails or is cancelled, and by a caller cancelled while the slot was being handed to it.
+     */
+    public <T> Flux<T> run(Supplier<Flux<T>> call) {
+        return Flux.usingWhen(Mono.create(this::acquire),
+                permit -> Flux.defer(() -> {
+                    permit.start = System.nanoTime();
+                    return call.get();
+                }),
+                permit -> Mono.fromRunnable(() -> permit.release(SignalType.ON_COMPLETE)),
+                (permit, ex) -> Mono.fromRunnable(() -> permit.release(SignalType.ON_ERROR)),
+                permit -> Mono.fromRunnable(() -> permit.release(SignalType.CANCEL)));
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    public synchronized int limit() {
+        return limit;
+    }
+
+    private void acquire(MonoSink<Permit> sink) {
+
+        Permit permit = new Permit(sink);
+        // a cancel before the permit is handed over drops it, the slot is given back here instead
+        sink.onCancel(() -> cancel(permit));
+        synchronized (this) {
+            // cancelled before it got here, it neither waits nor takes a slot
+            if (permit.cancelled) {
+                return;
+            }
+            if (inFlight >= limit) {
+                waiting.add(permit);
+                return;
+            }
+            grant(permit);
+        }
+        sink.success(permit);
+    }
+
+    private void cancel(Permit permit) {
+        synchronized (this) {
+            permit.cancelled = true;
+            // waiting or not queued yet, there is no slot to give back
+            if (!permit.granted) {
+                waiting.remove(permit);
+                return;
+            }
+        }
+        // the slot was granted but never reached the caller
+        permit.release(SignalType.CANCEL);
+    }
+
+    private void grant(Permit permit) {
+        inFlight++;
+        permit.granted = true;
+    }
+
+    private void release(long elapsedNanos, SignalType signal) {
+
+        List<Permit> next = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            // a cancelled call says nothing about the downstream service
+            if (signal != SignalType.CANCEL) {
+                latency.record(Duration.ofNanos(elapsedNanos));
+                adjust(signal == SignalType.ON_ERROR || elapsedNanos > latencyTargetNanos);
+            }
+
+            while (inFlight < limit && !waiting.isEmpty()) {
+                Permit permit = waiting.poll();
+                grant(permit);
+                next.add(permit);
+            }
+        }
+        // outside the lock, the waiting calls start on this thread
+        next.forEach(permit -> permit.sink.success(permit));
+    }
+
+    private void adjust(boolean congested) {
+        if (congested) {
+            limit = Math.max(minLimit, (int) (limit * backoffRatio));
+            fastCalls = 0;
+        } else if (++fastCalls >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+            fastCalls = 0;
+        }
+    }
+
+    /**
+     * One slot of the limit. Released at most once and only once granted, the call terminating and the caller
+     * cancelling can both try.
+     */
+    private final class Permit {
+
+        private final MonoSink<Permit> sink;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private long start = System.nanoTime();
+        // guarded by the limiter
+        private boolean granted;
+        private boolean cancelled;
+
+        private Permit(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+
+        private void release(SignalType signal) {
+            synchronized (ConcurrencyLimiter.this) {
+                if (!granted) {
+                    return;
+                }
+            }
+            if (released.compareAndSet(false, true)) {
+                ConcurrencyLimiter.this.release(System.nanoTime() - start, signal);
+            }
+        }
+    }
+}
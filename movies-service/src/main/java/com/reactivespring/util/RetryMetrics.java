@@ -0,0 +1,22 @@
+package com.reactivespring.util;
+
+import io.micrometer.core.instrument.*;
+
+/**
+ * Retry outcome counters of one client, registered once when the client is
+ * created rather than looked up on every call.
+ */
+public class RetryMetrics {
+
+    private static final String RETRIES_METRIC = "rest.client.retries";
+
+    final Counter attempted;
+    final Counter exhausted;
+    final Counter suppressed;
+
+    public RetryMetrics(String client) {
+        this.attempted = Metrics.counter(RETRIES_METRIC, "client", client, "outcome", "attempted");
+        this.exhausted = Metrics.counter(RETRIES_METRIC, "client", client, "outcome", "exhausted");
+        this.suppressed = Metrics.counter(RETRIES_METRIC, "client", client, "outcome", "suppressed");
+    }
+}
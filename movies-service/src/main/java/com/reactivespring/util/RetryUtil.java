@@ -1,10 +1,12 @@
 package com.reactivespring.util;
 
 import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
 
+import com.reactivespring.config.RetryProperties;
 import com.reactivespring.exception.*;
 
-import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 
 public class RetryUtil {
@@ -12,9 +14,43 @@ public class RetryUtil {
     private RetryUtil() {// just empty
     }
 
-    public static Retry retrySpec() {
-        return Retry.fixedDelay(3, Duration.ofSeconds(1))
-                .filter(ex -> ex instanceof MoviesInfoServerException || ex instanceof ReviewsServerException)
-                .onRetryExhaustedThrow((retryBackoffSpec, retrySignal) -> Exceptions.propagate(retrySignal.failure()));
+    public static Retry retrySpec(RetryProperties properties, RetryBudget budget, RetryMetrics metrics) {
+
+        return Retry.from(retrySignals -> {
+            budget.deposit();
+            long start = System.nanoTime();
+
+            return retrySignals.concatMap(retrySignal -> {
+                Throwable failure = retrySignal.failure();
+                if (!(failure instanceof MoviesInfoServerException || failure instanceof ReviewsServerException)) {
+                    return Mono.error(failure);
+                }
+
+                Duration backoff = backoff(properties, retrySignal.totalRetries());
+                Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+                if (retrySignal.totalRetries() >= properties.getMaxAttempts()
+                        || elapsed.plus(backoff).compareTo(properties.getMaxTotalTime()) > 0) {
+                    metrics.exhausted.increment();
+                    return Mono.error(failure);
+                }
+
+                if (!budget.tryAcquire()) {
+                    metrics.suppressed.increment();
+                    return Mono.error(failure);
+                }
+
+                metrics.attempted.increment();
+                return Mono.delay(backoff);
+            });
+        });
+    }
+
+    static Duration backoff(RetryProperties properties, long retries) {
+
+        long exponential = properties.getMinBackoff().toMillis() << Math.min(retries, 30);
+        long capped = Math.min(exponential, properties.getMaxBackoff().toMillis());
+        double jitter = properties.getJitter() * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+
+        return Duration.ofMillis(Math.max(0, Math.round(capped * (1 + jitter))));
     }
 }
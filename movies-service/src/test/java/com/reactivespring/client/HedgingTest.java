@@ -0,0 +1,69 @@
+package com.reactivespring.client;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.reactivespring.config.HedgingProperties;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class HedgingTest {
+
+    private HedgingProperties hedgingProperties(boolean enabled) {
+        HedgingProperties properties = new HedgingProperties();
+        properties.setEnabled(enabled);
+        properties.setDelay(Duration.ofMillis(100));
+        return properties;
+    }
+
+    // first request hangs, every later one answers straight away
+    private Mono<String> slowFirstCall(AtomicInteger calls) {
+        return Mono.defer(() -> calls.incrementAndGet() == 1 ? Mono.never() : Mono.just("hedge"));
+    }
+
+    @Test
+    void slowRequestIsHedged() {
+        AtomicInteger calls = new AtomicInteger();
+        Hedging hedging = new Hedging("test", hedgingProperties(true));
+
+        StepVerifier.withVirtualTime(() -> hedging.hedge(slowFirstCall(calls)))
+                .expectSubscription()
+                .thenAwait(Duration.ofMillis(100))
+                .expectNext("hedge")
+                .verifyComplete();
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void fastRequestIsNotHedged() {
+        AtomicInteger calls = new AtomicInteger();
+        Hedging hedging = new Hedging("test", hedgingProperties(true));
+
+        StepVerifier.withVirtualTime(() -> hedging.hedge(Mono.fromCallable(() -> calls.incrementAndGet())))
+                .expectNext(1)
+                .verifyComplete();
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void disabledHedgingPassesThrough() {
+        AtomicInteger calls = new AtomicInteger();
+        Hedging hedging = new Hedging("test", hedgingProperties(false));
+
+        StepVerifier.withVirtualTime(() -> hedging.hedge(slowFirstCall(calls)))
+                .expectSubscription()
+                .thenAwait(Duration.ofSeconds(1))
+                .expectNoEvent(Duration.ofSeconds(1))
+                .thenCancel()
+                .verify();
+
+        assertEquals(1, calls.get());
+    }
+}
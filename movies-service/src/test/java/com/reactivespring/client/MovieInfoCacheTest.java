@@ -0,0 +1,170 @@
+package com.reactivespring.client;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.reactivespring.config.MovieInfoCacheProperties;
+import com.reactivespring.domain.*;
+import com.reactivespring.exception.*;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import reactor.core.publisher.*;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class MovieInfoCacheTest {
+
+    @Mock
+    private MovieInfoRestClient movieInfoRestClient;
+
+    private MovieInfoCache movieInfoCache;
+
+    private final MovieInfo movieInfo = new MovieInfo("1", "Jokes", 2021, List.of("bob"), LocalDate.parse("2021-12-12"));
+
+    @BeforeEach
+    void setUp() {
+        MovieInfoCacheProperties properties = new MovieInfoCacheProperties();
+        properties.setInvalidateFromStream(false);
+
+        movieInfoCache = new MovieInfoCache(movieInfoRestClient, properties);
+        movieInfoCache.init();
+    }
+
+    private MovieInfoCache invalidatedCache() {
+        MovieInfoCache invalidatedCache = new MovieInfoCache(movieInfoRestClient, new MovieInfoCacheProperties());
+        invalidatedCache.init();
+        return invalidatedCache;
+    }
+
+    @Test
+    void concurrentMissesShareOneCall() {
+        Sinks.One<MovieInfo> response = Sinks.one();
+        when(movieInfoRestClient.retriveMovieInfo("1")).thenReturn(response.asMono());
+
+        StepVerifier.create(Mono.zip(movieInfoCache.retrieveMovieInfo("1"), movieInfoCache.retrieveMovieInfo("1")))
+                .then(() -> response.tryEmitValue(movieInfo))
+                .assertNext(movieInfos -> {
+                    assertEquals(movieInfo, movieInfos.getT1());
+                    assertEquals(movieInfo, movieInfos.getT2());
+                })
+                .verifyComplete();
+
+        StepVerifier.create(movieInfoCache.retrieveMovieInfo("1"))
+                .expectNext(movieInfo)
+                .verifyComplete();
+
+        verify(movieInfoRestClient, times(1)).retriveMovieInfo("1");
+    }
+
+    @Test
+    void updatedMovieInfoIsInvalidated() {
+        Sinks.Many<MovieInfoEvent> events = Sinks.many().multicast().directBestEffort();
+        when(movieInfoRestClient.retrieveMovieInfoEvents(null)).thenReturn(events.asFlux());
+        MovieInfo updated = new MovieInfo("1", "More Jokes", 2021, List.of("bob"), LocalDate.parse("2021-12-12"));
+        when(movieInfoRestClient.retriveMovieInfo("1"))
+                .thenReturn(Mono.just(movieInfo))
+                .thenReturn(Mono.just(updated));
+
+        MovieInfoCache invalidatedCache = invalidatedCache();
+
+        StepVerifier.create(invalidatedCache.retrieveMovieInfo("1"))
+                .expectNext(movieInfo)
+                .verifyComplete();
+
+        // the stream payload of the update is not cached, the next read goes back to movies-info
+        events.tryEmitNext(new MovieInfoEvent(MovieInfoEvent.Operation.UPDATE, "1", updated, "token-1"));
+
+        StepVerifier.create(invalidatedCache.retrieveMovieInfo("1"))
+                .expectNext(updated)
+                .verifyComplete();
+
+        verify(movieInfoRestClient, times(2)).retriveMovieInfo("1");
+        invalidatedCache.destroy();
+    }
+
+    @Test
+    void deletedMovieInfoIsInvalidated() {
+        Sinks.Many<MovieInfoEvent> events = Sinks.many().multicast().directBestEffort();
+        when(movieInfoRestClient.retrieveMovieInfoEvents(null)).thenReturn(events.asFlux());
+        when(movieInfoRestClient.retriveMovieInfo("1"))
+                .thenReturn(Mono.just(movieInfo))
+                .thenReturn(Mono.error(new MoviesInfoClientException("Not Found", 404)));
+
+        MovieInfoCache invalidatedCache = invalidatedCache();
+
+        StepVerifier.create(invalidatedCache.retrieveMovieInfo("1"))
+                .expectNext(movieInfo)
+                .verifyComplete();
+
+        events.tryEmitNext(new MovieInfoEvent(MovieInfoEvent.Operation.DELETE, "1", null, "token-1"));
+
+        StepVerifier.create(invalidatedCache.retrieveMovieInfo("1"))
+                .expectError(MoviesInfoClientException.class)
+                .verify();
+        invalidatedCache.destroy();
+    }
+
+    @Test
+    void insertsLeaveCachedMovieInfos() {
+        Sinks.Many<MovieInfoEvent> events = Sinks.many().multicast().directBestEffort();
+        when(movieInfoRestClient.retrieveMovieInfoEvents(null)).thenReturn(events.asFlux());
+        when(movieInfoRestClient.retriveMovieInfo("1")).thenReturn(Mono.just(movieInfo));
+
+        MovieInfoCache invalidatedCache = invalidatedCache();
+
+        StepVerifier.create(invalidatedCache.retrieveMovieInfo("1"))
+                .expectNext(movieInfo)
+                .verifyComplete();
+
+        events.tryEmitNext(new MovieInfoEvent(MovieInfoEvent.Operation.INSERT, "2", movieInfo, "token-1"));
+
+        StepVerifier.create(invalidatedCache.retrieveMovieInfo("1"))
+                .expectNext(movieInfo)
+                .verifyComplete();
+
+        verify(movieInfoRestClient, times(1)).retriveMovieInfo("1");
+        invalidatedCache.destroy();
+    }
+
+    @Test
+    void withoutMovieInfoEventsNothingIsCached() {
+        // the movies-info change stream is disabled
+        when(movieInfoRestClient.retrieveMovieInfoEvents(null))
+                .thenReturn(Flux.error(new MoviesInfoClientException("Not Found", 404)));
+        when(movieInfoRestClient.retriveMovieInfo("1")).thenReturn(Mono.just(movieInfo));
+
+        MovieInfoCache invalidatedCache = invalidatedCache();
+
+        StepVerifier.create(invalidatedCache.retrieveMovieInfo("1"))
+                .expectNext(movieInfo)
+                .verifyComplete();
+        StepVerifier.create(invalidatedCache.retrieveMovieInfo("1"))
+                .expectNext(movieInfo)
+                .verifyComplete();
+
+        verify(movieInfoRestClient, times(2)).retriveMovieInfo("1");
+        invalidatedCache.destroy();
+    }
+
+    @Test
+    void failuresAreNotCached() {
+        when(movieInfoRestClient.retriveMovieInfo("1"))
+                .thenReturn(Mono.error(new MoviesInfoServerException("down")))
+                .thenReturn(Mono.just(movieInfo));
+
+        StepVerifier.create(movieInfoCache.retrieveMovieInfo("1"))
+                .expectError(MoviesInfoServerException.class)
+                .verify();
+
+        StepVerifier.create(movieInfoCache.retrieveMovieInfo("1"))
+                .expectNext(movieInfo)
+                .verifyComplete();
+    }
+}
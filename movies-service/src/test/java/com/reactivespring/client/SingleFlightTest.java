@@ -0,0 +1,148 @@
+package com.reactivespring.client;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.*;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+public class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>("test");
+
+    @Test
+    void concurrentCallersShareOneCall() {
+        AtomicInteger calls = new AtomicInteger();
+        Sinks.One<String> response = Sinks.one();
+
+        Mono<String> first = singleFlight.mono("1", key -> response.asMono().doOnSubscribe(s -> calls.incrementAndGet()));
+        Mono<String> second = singleFlight.mono("1", key -> response.asMono().doOnSubscribe(s -> calls.incrementAndGet()));
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> response.tryEmitValue("movie"))
+                .expectNextMatches(results -> "movie".equals(results.getT1()) && "movie".equals(results.getT2()))
+                .verifyComplete();
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void completedCallsAreNotReused() {
+        AtomicInteger calls = new AtomicInteger();
+
+        StepVerifier.create(singleFlight.flux("1", key -> Flux.just("a", "b").doOnSubscribe(s -> calls.incrementAndGet())))
+                .expectNext("a", "b")
+                .verifyComplete();
+        StepVerifier.create(singleFlight.flux("1", key -> Flux.just("a", "b").doOnSubscribe(s -> calls.incrementAndGet())))
+                .expectNext("a", "b")
+                .verifyComplete();
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void callerJoiningOnCompletionStartsAFreshCall() {
+        AtomicInteger calls = new AtomicInteger();
+        List<String> rejoined = new ArrayList<>();
+
+        // hidden like a response body, a fused source would run the hooks in another order
+        StepVerifier.create(singleFlight.flux("1", key -> Flux.just("a" + calls.incrementAndGet()).hide())
+                .doOnComplete(() -> singleFlight.flux("1", key -> Flux.just("a" + calls.incrementAndGet()).hide())
+                        .subscribe(rejoined::add)))
+                .expectNext("a1")
+                .verifyComplete();
+
+        assertEquals(2, calls.get());
+        assertEquals(List.of("a2"), rejoined);
+    }
+
+    @Test
+    void concurrentCallersOnAPendingCallShareIt() {
+        AtomicInteger calls = new AtomicInteger();
+        Sinks.One<String> response = Sinks.one();
+        int callers = 1_000;
+        CountDownLatch joined = new CountDownLatch(callers);
+
+        // the response is held back until every caller joined, so all of them find the call in flight
+        StepVerifier.create(Flux.range(0, callers)
+                .parallel(8)
+                .runOn(Schedulers.parallel())
+                .flatMap(i -> singleFlight.mono("1", key -> response.asMono()
+                        .doOnSubscribe(s -> calls.incrementAndGet()))
+                        .doOnSubscribe(s -> joined.countDown()))
+                .sequential())
+                .then(() -> {
+                    await(joined);
+                    response.tryEmitValue("movie");
+                })
+                .expectNextCount(callers)
+                .verifyComplete();
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void concurrentJoinsAroundCompletionAllGetAResult() {
+        AtomicInteger calls = new AtomicInteger();
+        int callers = 10_000;
+
+        // how many flights complete while the callers join depends on the scheduling, every caller gets a result
+        StepVerifier.create(Flux.range(0, callers)
+                .parallel(8)
+                .runOn(Schedulers.parallel())
+                .flatMap(i -> singleFlight.mono("1", key -> Mono.fromCallable(() -> "movie" + calls.incrementAndGet())
+                        .subscribeOn(Schedulers.boundedElastic())))
+                .sequential())
+                .expectNextCount(callers)
+                .verifyComplete();
+    }
+
+    @Test
+    void callCancelledByEveryCallerIsCancelled() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Sinks.One<String> response = Sinks.one();
+        Mono<String> caller = singleFlight.mono("1", key -> response.asMono().doOnCancel(() -> cancelled.set(true)));
+
+        StepVerifier.create(Mono.zip(caller, caller))
+                .thenCancel()
+                .verify();
+
+        assertTrue(cancelled.get());
+        // the cancelled flight is gone, the next caller starts a fresh call
+        StepVerifier.create(singleFlight.mono("1", key -> Mono.just("movie")))
+                .expectNext("movie")
+                .verifyComplete();
+    }
+
+    @Test
+    void callCancelledBySomeCallersKeepsRunningForTheOthers() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Sinks.One<String> response = Sinks.one();
+        Mono<String> caller = singleFlight.mono("1", key -> response.asMono().doOnCancel(() -> cancelled.set(true)));
+
+        Disposable timedOut = caller.subscribe();
+        StepVerifier.create(caller)
+                .then(timedOut::dispose)
+                .then(() -> response.tryEmitValue("movie"))
+                .expectNext("movie")
+                .verifyComplete();
+
+        assertFalse(cancelled.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            fail(ex);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.reactivespring.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import com.reactivespring.common.codec.CodecConfig;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+public class WebClientConfigTest {
+
+    @Test
+    void prefersSmileOverJson() {
+        List<MediaType> accept = WebClientConfig.preferSmile(List.of(MediaType.APPLICATION_JSON));
+
+        assertEquals(List.of(MediaType.TEXT_PLAIN, CodecConfig.APPLICATION_SMILE,
+                MediaType.parseMediaType("application/json;q=0.9")), accept);
+    }
+
+    @Test
+    void prefersStreamSmileOverNdjson() {
+        List<MediaType> accept = WebClientConfig.preferSmile(List.of(MediaType.APPLICATION_NDJSON));
+
+        assertEquals(CodecConfig.APPLICATION_STREAM_SMILE, accept.get(1));
+        assertEquals(0.9, accept.get(2).getQualityValue());
+    }
+
+    @Test
+    void noAcceptAsksForBothSmileTypes() {
+        List<MediaType> accept = WebClientConfig.preferSmile(List.of());
+
+        assertTrue(accept.contains(CodecConfig.APPLICATION_SMILE));
+        assertTrue(accept.contains(CodecConfig.APPLICATION_STREAM_SMILE));
+        // json stays acceptable for a downstream without smile
+        assertTrue(accept.stream().anyMatch(MediaType.APPLICATION_JSON::equalsTypeAndSubtype));
+        assertTrue(accept.stream().anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype));
+    }
+}
@@ -1,22 +1,26 @@
 package com.reactivespring.controller;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
-import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.*;
 
 import java.time.LocalDate;
-import java.util.List;
+import java.util.*;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.github.tomakehurst.wiremock.client.WireMock;
 import com.reactivespring.base.BaseIntegrationTest;
+import com.reactivespring.client.ReviewsRestClient;
+import com.reactivespring.config.MoviesStreamProperties;
 import com.reactivespring.domain.*;
 
 import org.apache.http.entity.ContentType;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.contract.spec.internal.HttpHeaders;
 import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
 
 import io.netty.handler.codec.http.HttpResponseStatus;
+import reactor.test.StepVerifier;
 
 @AutoConfigureWireMock(port = 8084)
 public class MoviesControllerIntegrationTest extends BaseIntegrationTest {
@@ -24,6 +28,9 @@ public class MoviesControllerIntegrationTest extends BaseIntegrationTest {
         private static final String MOVIES_PATH = MoviesController.MOVIES_PATH;
         private static final String MOVIE_INFO_ID = "1";
 
+        @Autowired
+        private MoviesStreamProperties moviesStreamProperties;
+
         private Movie getMovie() {
                 List<Review> reviews = List.of(new Review("1", "1", "comment", 2.2),
                                 new Review("2", "1", "comment2", 2.2));
@@ -76,6 +83,231 @@ public class MoviesControllerIntegrationTest extends BaseIntegrationTest {
                                 });
         }
 
+        @Test
+        void testRetrieveMovieById_TopRatedReviews() throws JsonProcessingException {
+
+                String movieInfoJSON = mapper.writeValueAsString(getMovie().getMovieInfo());
+                String movieReviewsJSON = mapper.writeValueAsString(getMovie().getReviewList());
+
+                stubFor(
+                                get(urlEqualTo("/v1/movies/info/" + MOVIE_INFO_ID))
+                                                .willReturn(
+                                                                aResponse()
+                                                                                .withHeader(HttpHeaders.CONTENT_TYPE,
+                                                                                                ContentType.APPLICATION_JSON
+                                                                                                                .toString())
+                                                                                .withBody(movieInfoJSON)));
+
+                stubFor(
+                                get(urlPathEqualTo("/v1/reviews"))
+                                                .withQueryParam("movieInfoId", equalTo(MOVIE_INFO_ID))
+                                                .withQueryParam("pageSize", equalTo("2"))
+                                                .withQueryParam("sort", equalTo("rating"))
+                                                .willReturn(
+                                                                aResponse()
+                                                                                .withHeader(HttpHeaders.CONTENT_TYPE,
+                                                                                                ContentType.APPLICATION_JSON
+                                                                                                                .toString())
+                                                                                .withHeader(ReviewsRestClient.NEXT_CURSOR_HEADER,
+                                                                                                "2.2_2")
+                                                                                .withBody(movieReviewsJSON)));
+
+                webTestClient
+                                .get()
+                                .uri(MOVIES_PATH + "/{movieInfoId}?reviewsLimit=2&reviewsSort=rating", MOVIE_INFO_ID)
+                                .exchange()
+                                .expectStatus()
+                                .isOk()
+                                .expectBody()
+                                .jsonPath("$.reviewList.length()").isEqualTo(2)
+                                .jsonPath("$.reviewsNextCursor").isEqualTo("2.2_2");
+        }
+
+        @Test
+        void testStreamMovieById() throws JsonProcessingException {
+
+                String movieInfoJSON = mapper.writeValueAsString(getMovie().getMovieInfo());
+                String movieReviewsNDJSON = mapper.writeValueAsString(getMovie().getReviewList().get(0)) + "\n"
+                                + mapper.writeValueAsString(getMovie().getReviewList().get(1)) + "\n";
+
+                stubFor(
+                                get(urlEqualTo("/v1/movies/info/" + MOVIE_INFO_ID))
+                                                .willReturn(
+                                                                aResponse()
+                                                                                .withHeader(HttpHeaders.CONTENT_TYPE,
+                                                                                                ContentType.APPLICATION_JSON
+                                                                                                                .toString())
+                                                                                .withBody(movieInfoJSON)));
+
+                stubFor(
+                                get(urlEqualTo("/v1/reviews?movieInfoId=" + MOVIE_INFO_ID))
+                                                .withHeader("Accept", containing("application/x-ndjson"))
+                                                .willReturn(
+                                                                aResponse()
+                                                                                .withHeader(HttpHeaders.CONTENT_TYPE,
+                                                                                                "application/x-ndjson")
+                                                                                .withBody(movieReviewsNDJSON)));
+
+                webTestClient
+                                .get()
+                                .uri(MOVIES_PATH + "/{movieInfoId}/stream", MOVIE_INFO_ID)
+                                .exchange()
+                                .expectStatus()
+                                .isOk()
+                                .returnResult(MovieChunk.class)
+                                .getResponseBody()
+                                .as(StepVerifier::create)
+                                .assertNext(chunk -> assertEquals("Jokes", chunk.getMovieInfo().getName()))
+                                .assertNext(chunk -> assertEquals("1", chunk.getReview().getReviewId()))
+                                .assertNext(chunk -> assertEquals("2", chunk.getReview().getReviewId()))
+                                .verifyComplete();
+        }
+
+        @Test
+        void testRetrieveMovieSummaryById() throws JsonProcessingException {
+
+                String movieInfoJSON = mapper.writeValueAsString(getMovie().getMovieInfo());
+                String reviewSummaryJSON = mapper.writeValueAsString(
+                                List.of(new ReviewSummary(MOVIE_INFO_ID, 2, 2.2, Map.of("2", 2L))));
+
+                stubFor(
+                                get(urlEqualTo("/v1/movies/info/" + MOVIE_INFO_ID))
+                                                .willReturn(
+                                                                aResponse()
+                                                                                .withHeader(HttpHeaders.CONTENT_TYPE,
+                                                                                                ContentType.APPLICATION_JSON
+                                                                                                                .toString())
+                                                                                .withBody(movieInfoJSON)));
+
+                stubFor(
+                                get(urlEqualTo("/v1/reviews/summary?movieInfoId=" + MOVIE_INFO_ID))
+                                                .willReturn(
+                                                                aResponse()
+                                                                                .withHeader(HttpHeaders.CONTENT_TYPE,
+                                                                                                ContentType.APPLICATION_JSON
+                                                                                                                .toString())
+                                                                                .withBody(reviewSummaryJSON)));
+
+                webTestClient
+                                .get()
+                                .uri(MOVIES_PATH + "/{movieInfoId}/summary", MOVIE_INFO_ID)
+                                .exchange()
+                                .expectStatus()
+                                .isOk()
+                                .expectBody()
+                                .jsonPath("$.movieInfo.name").isEqualTo("Jokes")
+                                .jsonPath("$.reviewSummary.count").isEqualTo(2)
+                                .jsonPath("$.reviewSummary.averageRating").isEqualTo(2.2)
+                                .jsonPath("$.reviewList").doesNotExist();
+
+                WireMock.verify(0, getRequestedFor(urlPathEqualTo("/v1/reviews")));
+        }
+
+        @Test
+        void testRetrieveMovieInfoStream_BatchesReviewLookups() throws JsonProcessingException {
+
+                MovieInfo info1 = getMovie().getMovieInfo();
+                MovieInfo info2 = new MovieInfo("2", "Jokes 2", 2022, List.of("bob"), LocalDate.parse("2022-12-12"));
+                String movieInfoNDJSON = mapper.writeValueAsString(info1) + "\n" + mapper.writeValueAsString(info2);
+                String movieReviewsJSON = mapper.writeValueAsString(getMovie().getReviewList());
+
+                stubFor(
+                                get(urlEqualTo("/v1/movies/info/stream"))
+                                                .willReturn(
+                                                                aResponse()
+                                                                                .withHeader(HttpHeaders.CONTENT_TYPE,
+                                                                                                "application/x-ndjson")
+                                                                                .withBody(movieInfoNDJSON)));
+
+                stubFor(
+                                get(urlPathEqualTo("/v1/reviews"))
+                                                .withQueryParam("movieInfoId", equalTo("1,2"))
+                                                .willReturn(
+                                                                aResponse()
+                                                                                .withHeader(HttpHeaders.CONTENT_TYPE,
+                                                                                                ContentType.APPLICATION_JSON
+                                                                                                                .toString())
+                                                                                .withBody(movieReviewsJSON)));
+
+                webTestClient
+                                .get()
+                                .uri(MOVIES_PATH + "/stream")
+                                .exchange()
+                                .expectStatus()
+                                .isOk()
+                                .expectBodyList(Movie.class)
+                                .consumeWith(response -> {
+                                        List<Movie> movies = response.getResponseBody();
+                                        assert movies != null;
+                                        assertAll(
+                                                        () -> {
+                                                                assert movies.size() == 2;
+                                                        },
+                                                        () -> {
+                                                                assert movies.get(0).getReviewList().size() == 2;
+                                                        },
+                                                        () -> {
+                                                                assert movies.get(1).getReviewList().isEmpty();
+                                                        });
+                                });
+
+                WireMock.verify(1, getRequestedFor(urlPathEqualTo("/v1/reviews")));
+        }
+
+        @Test
+        void testRetrieveMovieInfoStream_SlowReviewLookupsFillEveryFanOutSlot() throws JsonProcessingException {
+
+                // one movie info per chunk, each arriving after the batch wait so every batch is a timed flush, and
+                // more batches than lookups can run at once
+                int fanOut = moviesStreamProperties.getFanOut().getConcurrency();
+                long batchWait = moviesStreamProperties.getReviewBatchMaxWait().toMillis();
+                int movieCount = fanOut + 2;
+                StringBuilder movieInfoNDJSON = new StringBuilder();
+                for (int i = 0; i < movieCount; i++) {
+                        // equal length lines, the chunks split the body between them
+                        movieInfoNDJSON.append(mapper.writeValueAsString(new MovieInfo(String.valueOf(10 + i),
+                                        "Jokes " + (10 + i), 2021, List.of("bob"), LocalDate.parse("2021-12-12"))))
+                                        .append("\n");
+                }
+
+                stubFor(
+                                get(urlEqualTo("/v1/movies/info/stream"))
+                                                .willReturn(
+                                                                aResponse()
+                                                                                .withHeader(HttpHeaders.CONTENT_TYPE,
+                                                                                                "application/x-ndjson")
+                                                                                .withBody(movieInfoNDJSON.toString())
+                                                                                .withChunkedDribbleDelay(movieCount,
+                                                                                                (int) (movieCount
+                                                                                                                * batchWait
+                                                                                                                * 2))));
+
+                // still running when the last movie info is flushed
+                stubFor(
+                                get(urlPathEqualTo("/v1/reviews"))
+                                                .willReturn(
+                                                                aResponse()
+                                                                                .withHeader(HttpHeaders.CONTENT_TYPE,
+                                                                                                ContentType.APPLICATION_JSON
+                                                                                                                .toString())
+                                                                                .withBody("[]")
+                                                                                .withFixedDelay((int) (movieCount
+                                                                                                * batchWait * 3))));
+
+                webTestClient
+                                .get()
+                                .uri(MOVIES_PATH + "/stream")
+                                .exchange()
+                                .expectStatus()
+                                .isOk()
+                                .expectBodyList(Movie.class)
+                                .consumeWith(response -> {
+                                        List<Movie> movies = response.getResponseBody();
+                                        assertNotNull(movies);
+                                        assertEquals(movieCount, movies.size());
+                                });
+        }
+
         @Test
         public void testRetieveMovieById_4xxResponseErrors_MovieInfoService() {
 
@@ -0,0 +1,103 @@
+package com.reactivespring.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.*;
+import reactor.test.StepVerifier;
+
+public class ConcurrencyLimiterTest {
+
+    @Test
+    void capsCallsInFlight() {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.fixed("test-fixed", 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        Flux<Integer> calls = Flux.range(0, 10)
+                .flatMap(i -> limiter.run(() -> Mono.delay(Duration.ofMillis(20))
+                        .doOnSubscribe(subscription -> maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max))
+                        .doOnTerminate(running::decrementAndGet)
+                        .thenReturn(i)
+                        .flux()));
+
+        StepVerifier.create(calls)
+                .expectNextCount(10)
+                .verifyComplete();
+
+        assertEquals(2, maxRunning.get());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void adaptiveLimitBacksOffOnSlowCalls() {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.adaptive("test-adaptive", 1, 8, Duration.ofMillis(5), 0.5);
+
+        StepVerifier.create(Flux.range(0, 3)
+                .concatMap(i -> limiter.run(() -> Mono.delay(Duration.ofMillis(20)).flux())))
+                .expectNextCount(3)
+                .verifyComplete();
+
+        assertEquals(1, limiter.limit());
+    }
+
+    @Test
+    void adaptiveLimitGrowsBackOnFastCalls() {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.adaptive("test-recovery", 1, 8, Duration.ofSeconds(1), 0.5);
+
+        StepVerifier.create(limiter.run(() -> Flux.error(new IllegalStateException("down"))))
+                .expectError(IllegalStateException.class)
+                .verify();
+        assertEquals(4, limiter.limit());
+
+        StepVerifier.create(Flux.range(0, 4).concatMap(i -> limiter.run(() -> Flux.just(i))))
+                .expectNextCount(4)
+                .verifyComplete();
+        assertEquals(5, limiter.limit());
+    }
+
+    @Test
+    void cancelledCallFreesItsSlot() {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.fixed("test-cancel", 1);
+
+        StepVerifier.create(limiter.run(Flux::never))
+                .thenCancel()
+                .verify();
+
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void cancelledWaiterGivesNoSlotBack() {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.fixed("test-cancel-waiting", 1);
+        Sinks.Empty<Void> first = Sinks.empty();
+
+        Disposable running = limiter.run(() -> first.asMono().flux()).subscribe();
+        Disposable waiting = limiter.run(() -> Flux.just(1)).subscribe();
+        assertEquals(1, limiter.inFlight());
+
+        waiting.dispose();
+        first.tryEmitEmpty();
+
+        assertEquals(0, limiter.inFlight());
+        running.dispose();
+    }
+
+    @Test
+    void cancellationRacingTheCallsGivesEverySlotBack() {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.fixed("test-cancel-race", 4);
+
+        Flux.range(0, 2000)
+                .flatMap(i -> limiter.run(() -> Mono.delay(Duration.ofMillis(1)).flux())
+                        .take(Duration.ofNanos(ThreadLocalRandom.current().nextLong(2_000_000))), 64)
+                .blockLast(Duration.ofSeconds(30));
+
+        assertEquals(0, limiter.inFlight());
+    }
+}
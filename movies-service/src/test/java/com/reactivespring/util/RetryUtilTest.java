@@ -0,0 +1,80 @@
+package com.reactivespring.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.reactivespring.config.RetryProperties;
+import com.reactivespring.exception.*;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class RetryUtilTest {
+
+    private RetryProperties retryProperties() {
+        RetryProperties properties = new RetryProperties();
+        properties.setMinBackoff(Duration.ofMillis(10));
+        properties.setMaxBackoff(Duration.ofMillis(20));
+        return properties;
+    }
+
+    private Mono<String> failing(AtomicInteger attempts, RuntimeException failure) {
+        return Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(failure);
+        });
+    }
+
+    @Test
+    void retriesServerErrorsUpToMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        StepVerifier.create(failing(attempts, new MoviesInfoServerException("down"))
+                .retryWhen(RetryUtil.retrySpec(retryProperties(), new RetryBudget(0.2, 100),
+                        new RetryMetrics("test"))))
+                .expectError(MoviesInfoServerException.class)
+                .verify();
+
+        assertEquals(4, attempts.get());
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        StepVerifier.create(failing(attempts, new MoviesInfoClientException("not found", 404))
+                .retryWhen(RetryUtil.retrySpec(retryProperties(), new RetryBudget(0.2, 100),
+                        new RetryMetrics("test"))))
+                .expectError(MoviesInfoClientException.class)
+                .verify();
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void exhaustedBudgetSuppressesRetries() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        StepVerifier.create(failing(attempts, new ReviewsServerException("down"))
+                .retryWhen(RetryUtil.retrySpec(retryProperties(), new RetryBudget(0, 1),
+                        new RetryMetrics("test"))))
+                .expectError(ReviewsServerException.class)
+                .verify();
+
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void backoffIsCappedAndJittered() {
+        RetryProperties properties = retryProperties();
+
+        for (int retries = 0; retries < 10; retries++) {
+            long backoff = RetryUtil.backoff(properties, retries).toMillis();
+            assertTrue(backoff >= 0 && backoff <= 30);
+        }
+    }
+}
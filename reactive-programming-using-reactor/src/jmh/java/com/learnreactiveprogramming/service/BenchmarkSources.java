@@ -0,0 +1,34 @@
+package com.learnreactiveprogramming.service;
+
+import java.util.List;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Inputs shared by the benchmarks, the names of {@link FluxAndMonoGeneratorService} repeated to any size.
+ */
+public final class BenchmarkSources {
+
+    /**
+     * How inner and combined publishers deliver. The service delays elements by a real second, here they either
+     * arrive on the subscribing thread or hop to the parallel scheduler without any delay.
+     */
+    public enum Delivery {
+        SYNC,
+        ASYNC
+    }
+
+    private static final List<String> NAMES = List.of("alex", "ben", "bobby");
+
+    private BenchmarkSources() {
+    }
+
+    static Flux<String> names(int count) {
+        return Flux.range(0, count).map(index -> NAMES.get(index % NAMES.size()));
+    }
+
+    static <T> Flux<T> deliver(Flux<T> flux, Delivery delivery) {
+        return delivery == Delivery.ASYNC ? flux.subscribeOn(Schedulers.parallel()) : flux;
+    }
+}
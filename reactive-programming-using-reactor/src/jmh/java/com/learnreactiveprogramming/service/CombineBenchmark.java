@@ -0,0 +1,68 @@
+package com.learnreactiveprogramming.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * The ways {@link FluxAndMonoGeneratorService} combines publishers, concat, merge, mergeSequential and the zips, each
+ * over sources of the same size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CombineBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    public int elements;
+
+    @Param({ "SYNC", "ASYNC" })
+    public BenchmarkSources.Delivery delivery;
+
+    private Flux<String> first;
+    private Flux<String> second;
+    private Flux<String> third;
+    private Flux<String> fourth;
+
+    @Setup
+    public void setup() {
+        first = BenchmarkSources.deliver(BenchmarkSources.names(elements), delivery);
+        second = BenchmarkSources.deliver(BenchmarkSources.names(elements).map(String::toUpperCase), delivery);
+        third = BenchmarkSources.deliver(Flux.range(0, elements).map(String::valueOf), delivery);
+        fourth = BenchmarkSources.deliver(Flux.range(elements, elements).map(String::valueOf), delivery);
+    }
+
+    @Benchmark
+    public String concat() {
+        return Flux.concat(first, second).blockLast();
+    }
+
+    @Benchmark
+    public String merge() {
+        return Flux.merge(first, second).blockLast();
+    }
+
+    @Benchmark
+    public String mergeSequential() {
+        return Flux.mergeSequential(first, second).blockLast();
+    }
+
+    @Benchmark
+    public String zip() {
+        return Flux.zip(first, second, (one, two) -> one + two).blockLast();
+    }
+
+    @Benchmark
+    public String zipWith() {
+        return first.zipWith(second).map(t2 -> t2.getT1() + t2.getT2()).blockLast();
+    }
+
+    @Benchmark
+    public String zipTuple4() {
+        return Flux.zip(first, second, third, fourth)
+                .map(t4 -> t4.getT1() + t4.getT2() + t4.getT3() + t4.getT4())
+                .blockLast();
+    }
+}
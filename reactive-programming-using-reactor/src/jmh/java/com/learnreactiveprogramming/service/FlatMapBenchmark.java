@@ -0,0 +1,63 @@
+package com.learnreactiveprogramming.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * flatMap, concatMap and flatMapSequential over the one to many split of
+ * {@link FluxAndMonoGeneratorService#namesFluxFlatMap()}, without the per signal logging.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FlatMapBenchmark {
+
+    @Param({ "10", "1000", "10000" })
+    public int elements;
+
+    @Param({ "SYNC", "ASYNC" })
+    public BenchmarkSources.Delivery delivery;
+
+    private final FluxAndMonoGeneratorService service = new FluxAndMonoGeneratorService();
+
+    private Flux<String> names;
+
+    /**
+     * Inner publishers subscribed at once, concatMap has none and only runs once per element count.
+     */
+    @State(Scope.Benchmark)
+    public static class Concurrency {
+
+        @Param({ "1", "16", "256" })
+        public int level;
+    }
+
+    @Setup
+    public void setup() {
+        names = BenchmarkSources.names(elements)
+                .map(String::toUpperCase)
+                .filter(name -> name.length() > 3);
+    }
+
+    private Flux<String> split(String name) {
+        return BenchmarkSources.deliver(service.getFluxFromString(name), delivery);
+    }
+
+    @Benchmark
+    public String flatMap(Concurrency concurrency) {
+        return names.flatMap(this::split, concurrency.level).blockLast();
+    }
+
+    @Benchmark
+    public String concatMap() {
+        return names.concatMap(this::split).blockLast();
+    }
+
+    @Benchmark
+    public String flatMapSequential(Concurrency concurrency) {
+        return names.flatMapSequential(this::split, concurrency.level).blockLast();
+    }
+}
@@ -0,0 +1,78 @@
+package com.learnreactiveprogramming.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+import org.openjdk.jmh.annotations.*;
+
+import reactor.core.publisher.*;
+
+/**
+ * Inline operators against the same operators behind transform, the empty fallbacks, and Mono flatMap against
+ * flatMapMany.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TransformBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    public int elements;
+
+    private final FluxAndMonoGeneratorService service = new FluxAndMonoGeneratorService();
+
+    private final UnaryOperator<Flux<String>> filterMap = input -> input.map(String::toUpperCase)
+            .filter(name -> name.length() > 3);
+
+    // filters every name out, so the fallbacks always kick in
+    private final UnaryOperator<Flux<String>> filterAll = input -> input.map(String::toUpperCase)
+            .filter(name -> name.length() > 6);
+
+    private Flux<String> names;
+
+    // a single name as long as the element count, split into that many letters
+    private String longName;
+
+    @Setup
+    public void setup() {
+        names = BenchmarkSources.names(elements);
+        longName = "a".repeat(elements);
+    }
+
+    @Benchmark
+    public String inline() {
+        return names.map(String::toUpperCase)
+                .filter(name -> name.length() > 3)
+                .blockLast();
+    }
+
+    @Benchmark
+    public String transform() {
+        return names.transform(filterMap).blockLast();
+    }
+
+    @Benchmark
+    public String defaultIfEmpty() {
+        return names.transform(filterAll).defaultIfEmpty("Default").blockLast();
+    }
+
+    @Benchmark
+    public String switchIfEmpty() {
+        return names.transform(filterAll).switchIfEmpty(Flux.just("default")).blockLast();
+    }
+
+    @Benchmark
+    public List<String> monoFlatMap() {
+        return Mono.just(longName)
+                .flatMap(name -> Mono.just(List.of(name.split(""))))
+                .block();
+    }
+
+    @Benchmark
+    public String monoFlatMapMany() {
+        return Mono.just(longName)
+                .flatMapMany(service::getFluxFromString)
+                .blockLast();
+    }
+}